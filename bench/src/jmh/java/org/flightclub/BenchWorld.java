@@ -0,0 +1,35 @@
+package org.flightclub;
+
+/**
+ * Builds the headless worlds the benchmarks run against.
+ */
+class BenchWorld {
+    /** let clouds build and the gaggle spread out before measuring */
+    static final int WARM_UP_TICKS = 2000;
+
+    /** tile 2 has a ridge plus two distant hills */
+    static final int HILL_TILE = 2;
+
+    static XCGame demo() {
+        SimulationRunner runner = new SimulationRunner(new XCGame());
+        runner.run(WARM_UP_TICKS);
+
+        XCGame app = runner.getApp();
+        app.landscape.loadTile(HILL_TILE);
+        return app;
+    }
+
+    static Hill hill(XCGame app) {
+        return app.landscape.tiles[HILL_TILE].hills.elementAt(0);
+    }
+
+    /** point the camera at the ridge on the hill tile */
+    static void lookAtHill(XCGame app) {
+        Hill hill = hill(app);
+        Vector3d eye = hill.getEye();
+        Vector3d focus = hill.getFocus();
+        app.cameraMan.setEye(eye.x, eye.y, eye.z);
+        app.cameraMan.setFocus(focus.x, focus.y, focus.z);
+        app.cameraMan.setMatrix();
+    }
+}
@@ -0,0 +1,66 @@
+package org.flightclub;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick physics costs: lift and terrain lookups made by every
+ * glider and one flying dot tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PhysicsBenchmark {
+    /** number of query points - cycled through, one per call */
+    static final int NUM_POINTS = 1024;
+
+    XCGame app;
+    final Vector3d[] ps = new Vector3d[NUM_POINTS];
+    int next = 0;
+
+    @Setup
+    public void setUp() {
+        app = BenchWorld.demo();
+
+        /*
+         * spread points over the hill tile and the
+         * foreground, below cloud base
+         */
+        float y0 = BenchWorld.HILL_TILE * Landscape.TILE_WIDTH;
+        for (int i = 0; i < NUM_POINTS; i++) {
+            float x = (i % 32) * Landscape.TILE_WIDTH / 32f - Landscape.TILE_WIDTH / 2f;
+            float y = y0 + (i / 32) * Landscape.TILE_WIDTH / 32f;
+            ps[i] = new Vector3d(x, y, 1);
+        }
+    }
+
+    private Vector3d nextPoint() {
+        next = (next + 1) & (NUM_POINTS - 1);
+        return ps[next];
+    }
+
+    @Benchmark
+    public Cloud getCloudAt() {
+        return app.sky.getCloudAt(nextPoint());
+    }
+
+    @Benchmark
+    public float getHeight() {
+        Vector3d p = nextPoint();
+        return app.landscape.getHeight(p.x, p.y);
+    }
+
+    /** a jet never lands so every call does a full tick */
+    @Benchmark
+    public Vector3d tick() {
+        app.jet1.tick(SimulationRunner.DEFAULT_DELTA);
+        return app.jet1.p;
+    }
+}
@@ -0,0 +1,123 @@
+package org.flightclub;
+
+import org.flightclub.compat.AwtGraphics;
+import org.flightclub.compat.Graphics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame render costs: projecting one object, depth sorting a
+ * layer and drawing a whole frame into an offscreen image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RenderBenchmark {
+    static final int WIDTH = CameraMan.HEADLESS_WIDTH;
+    static final int HEIGHT = CameraMan.HEADLESS_HEIGHT;
+
+    XCGame app;
+    Object3d hill;
+    BufferedImage image;
+    java.awt.Graphics awtGraphics;
+    Graphics g;
+
+    @Setup
+    public void setUp() {
+        app = BenchWorld.demo();
+        BenchWorld.lookAtHill(app);
+        hill = BenchWorld.hill(app).object3d;
+
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        awtGraphics = image.createGraphics();
+        g = new AwtGraphics(awtGraphics);
+    }
+
+    @Benchmark
+    public boolean film() {
+        hill.film(app.cameraMan);
+        return hill.inFOV;
+    }
+
+    @Benchmark
+    public ObjectLayer sort(Orbit orbit) {
+        orbit.next();
+        orbit.layer.sort();
+        return orbit.layer;
+    }
+
+    @Benchmark
+    public BufferedImage draw() {
+        awtGraphics.setColor(java.awt.Color.white);
+        awtGraphics.fillRect(0, 0, WIDTH, HEIGHT);
+        app.draw(g, WIDTH, HEIGHT);
+        return image;
+    }
+
+    /**
+     * A world whose camera circles the hill, a little further before
+     * each sort, as between frames, so the layer has a few objects out of
+     * order. Each pose is filmed up front and sorting takes the next
+     * pose's depths, so all we time beyond the sort is copying them in.
+     */
+    @State(Scope.Thread)
+    public static class Orbit {
+        /** poses once round the hill, so the last leads on to the first */
+        static final int POSES = 360;
+
+        ObjectLayer layer;
+        Object3d[] objects;
+        // depths[pose][i] is the depth of objects[i] from that pose
+        float[][] depths;
+        int pose = 0;
+
+        @Setup
+        public void setUp() {
+            XCGame app = BenchWorld.demo();
+            // layer 1 holds the hills, gliders and clouds
+            layer = app.obj3dManager.layers.elementAt(1);
+            objects = layer.toArray(new Object3d[0]);
+
+            Hill hill = BenchWorld.hill(app);
+            Vector3d eye = hill.getEye();
+            Vector3d focus = hill.getFocus();
+            float dx = eye.x - focus.x;
+            float dy = eye.y - focus.y;
+            float radius = (float) Math.sqrt(dx * dx + dy * dy);
+            float angle = (float) Math.atan2(dy, dx);
+
+            CameraMan camera = app.cameraMan;
+            depths = new float[POSES][objects.length];
+            for (int k = 0; k < POSES; k++) {
+                float a = angle + (float) (2 * Math.PI) * k / POSES;
+                camera.setEye(focus.x + radius * (float) Math.cos(a),
+                        focus.y + radius * (float) Math.sin(a), eye.z);
+                camera.setFocus(focus.x, focus.y, focus.z);
+                camera.setMatrix();
+                for (int i = 0; i < objects.length; i++) {
+                    objects[i].film(camera);
+                    depths[k][i] = objects[i].depth;
+                }
+            }
+
+            next();
+            layer.sort();
+        }
+
+        /** move on to the next pose */
+        void next() {
+            pose = (pose + 1 == POSES) ? 0 : pose + 1;
+            float[] d = depths[pose];
+            for (int i = 0; i < objects.length; i++)
+                objects[i].depth = d[i];
+        }
+    }
+}
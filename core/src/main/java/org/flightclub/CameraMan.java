@@ -28,9 +28,28 @@ public class CameraMan {
     private final int screenHeight;
     private final float theScale;
 
+    // frustum sides - tan of the half angles of view and matching secants
+    private final float tanY, secY;
+    private final float tanZ, secZ;
+
     private Vector3d eye;
     private Vector3d focus;
 
+    // eye and focus at the start of this tick
+    private final Vector3d _eye = new Vector3d();
+    private final Vector3d _focus = new Vector3d();
+
+    // what we film from - eye and focus, or somewhere between them
+    // and where they were at the start of the tick
+    private final Vector3d viewEye = new Vector3d();
+    private final Vector3d viewFocus = new Vector3d();
+
+    /**
+     * fraction of its last move to step each object back by when
+     * filming between ticks, 0 draws everything where it is now
+     */
+    float lag = 0;
+
     private static final int BACKGROUND_R = 255;
     private static final int BACKGROUND_G = 255;
     private static final int BACKGROUND_B = 255;
@@ -41,6 +60,10 @@ public class CameraMan {
 
     public static final float CAMERA_MOVEMENT_DELTA = (float) 0.1;
 
+    /** screen size to film for when there is no interface */
+    static final int HEADLESS_WIDTH = 640;
+    static final int HEADLESS_HEIGHT = 480;
+
     CameraSubject cameraSubject; //populate using cutSetup
     CameraSubject subject1;
     CameraSubject subject2;
@@ -66,17 +89,36 @@ public class CameraMan {
     Vector3d deye, dfocus;
     Vector3d eyeGoto, focusGoto;
 
+    // scratch vectors - reused each tick so we make no garbage. only
+    // the clock thread uses these
+    private final Vector3d deye_ = new Vector3d();
+    private final Vector3d dfocus_ = new Vector3d();
+    private final Vector3d ray = new Vector3d();
+    // setMatrix's own, as it runs on the paint thread
+    private final Vector3d viewRay = new Vector3d();
+
     static final int PLAN_H = 20;
     static final int PLAN_Y_OFFSET = 4;
 
     CameraMan(XCGame theApp) {
         app = theApp;
 
-        //get the canvas size
-        screenWidth = app.envInterface.getWidth();
-        screenHeight = app.envInterface.getHeight();
+        //get the canvas size (none if running headless)
+        if (app.envInterface != null) {
+            screenWidth = app.envInterface.getWidth();
+            screenHeight = app.envInterface.getHeight();
+        } else {
+            screenWidth = HEADLESS_WIDTH;
+            screenHeight = HEADLESS_HEIGHT;
+        }
         theScale = screenHeight * (float) 1.1; //defines lens angle - smaller num -> wider angle
 
+        //a pixel of slack round the edges
+        tanY = (screenWidth / 2 + 1) / theScale;
+        tanZ = (screenHeight / 2 + 1) / theScale;
+        secY = (float) Math.sqrt(1 + tanY * tanY);
+        secZ = (float) Math.sqrt(1 + tanZ * tanZ);
+
         //starting position and light
         eye = new Vector3d(3, 0, 0);
         focus = new Vector3d(0, 0, 0);
@@ -169,11 +211,8 @@ public class CameraMan {
             Vector3d eNew = cameraSubject.getEye();
             Vector3d fNew = cameraSubject.getFocus();
 
-            Vector3d de = eNew.minus(eyeGoto);
-            Vector3d df = fNew.minus(focusGoto);
-
-            eye.add(de);
-            focus.add(df);
+            eye.add(eNew.minus(eyeGoto, ray));
+            focus.add(fNew.minus(focusGoto, ray));
 
             //note subjects new position for next iteration
             eyeGoto = eNew;
@@ -233,8 +272,8 @@ public class CameraMan {
      */
     @SuppressWarnings("StatementWithEmptyBody")
     void cutStep() {
-        Vector3d deye_ = new Vector3d(deye);
-        Vector3d dfocus_ = new Vector3d(dfocus);
+        deye_.set(deye);
+        dfocus_.set(dfocus);
         float s;
 
         if (cutCount > CUT_LEN - CUT_RAMP) {
@@ -260,6 +299,44 @@ public class CameraMan {
     }
 
 
+    /**
+     * what we are filming, from where, and how far through a cut
+     */
+    void save(WorldState out) {
+        out.putInt(mode.ordinal());
+        out.putSubject(cameraSubject);
+        out.putSubject(subject1);
+        out.putSubject(subject2);
+        out.putVector(eye);
+        out.putVector(focus);
+        out.putInt(cutCount);
+        out.putInt(cut2Count);
+        out.putVectorOrNull(deye);
+        out.putVectorOrNull(dfocus);
+        out.putVectorOrNull(eyeGoto);
+        out.putVectorOrNull(focusGoto);
+        out.putFloat(zoom);
+        out.putFloat(lag);
+    }
+
+    void restore(WorldState in) {
+        mode = Mode.values()[in.getInt()];
+        cameraSubject = in.getSubject();
+        subject1 = in.getSubject();
+        subject2 = in.getSubject();
+        eye = in.getVector(new Vector3d());
+        focus = in.getVector(new Vector3d());
+        cutCount = in.getInt();
+        cut2Count = in.getInt();
+        deye = in.getVectorOrNull(new Vector3d());
+        dfocus = in.getVectorOrNull(new Vector3d());
+        eyeGoto = in.getVectorOrNull(new Vector3d());
+        focusGoto = in.getVectorOrNull(new Vector3d());
+        zoom = in.getFloat();
+        lag = in.getFloat();
+        savePosition();
+    }
+
     public Vector3d getEye() {
         return eye;
     }
@@ -276,6 +353,22 @@ public class CameraMan {
         focus.set(x, y, z);
     }
 
+    public Vector3d getViewEye() {
+        return viewEye;
+    }
+
+    public Vector3d getViewFocus() {
+        return viewFocus;
+    }
+
+    /**
+     * note where we are before the tick moves us
+     */
+    void savePosition() {
+        _eye.set(eye);
+        _focus.set(focus);
+    }
+
     public float getDistance() {
         return distance;
     }
@@ -288,7 +381,7 @@ public class CameraMan {
      * rotate eye about z axis by xy radians and up/down by z
      */
     void rotateEyeAboutFocus(float dtheta) {
-        Vector3d ray = eye.minus(focus);
+        eye.minus(focus, ray);
 
         //transform ray
         float[][] m = Tools3d.rotateX(new Vector3d(1, dtheta, 0));
@@ -299,7 +392,7 @@ public class CameraMan {
     }
 
     void translateZ(float dz) {
-        Vector3d ray = eye.minus(focus);
+        eye.minus(focus, ray);
 
         ray.z += distance * dz;
 
@@ -313,7 +406,7 @@ public class CameraMan {
      * move focus, maintaining angle of view
      */
     void moveFocus(Vector3d f) {
-        Vector3d ray = eye.minus(focus);
+        eye.minus(focus, ray);
         focus.set(f);
         eye.set(ray).add(focus);
     }
@@ -322,9 +415,61 @@ public class CameraMan {
      * rotation such that eye is looking down +x axis at origin
      */
     void setMatrix() {
-        Vector3d ray = eye.minus(focus);
-        matrix = Tools3d.rotateX(ray);
-        distance = ray.length();
+        viewEye.set(eye);
+        viewFocus.set(focus);
+        viewEye.minus(viewFocus, viewRay);
+        matrix = Tools3d.rotateX(viewRay);
+        distance = viewRay.length();
+    }
+
+    /**
+     * as above but film from a fraction alpha of the way through
+     * this tick's camera move
+     */
+    void setMatrix(float alpha) {
+        eye.minus(_eye, viewEye).scaleBy(alpha).add(_eye);
+        focus.minus(_focus, viewFocus).scaleBy(alpha).add(_focus);
+        viewEye.minus(viewFocus, viewRay);
+        matrix = Tools3d.rotateX(viewRay);
+        distance = viewRay.length();
+    }
+
+    /**
+     * x of (x, y, z) in camera co-ords - the eye is on the +x axis so larger
+     * is nearer. call after setMatrix
+     */
+    float depthOf(float x, float y, float z) {
+        float[][] m = matrix;
+        return m[0][0] * (x - viewFocus.x) + m[0][1] * (y - viewFocus.y) + m[0][2] * (z - viewFocus.z);
+    }
+
+    /**
+     * false if a sphere is surely out of shot - behind the camera, off
+     * the edge of the screen or further away than the fog lets us see.
+     * call after setMatrix
+     */
+    boolean canSee(float cx, float cy, float cz, float r) {
+        float[][] m = matrix;
+        float x = cx - viewFocus.x;
+        float y = cy - viewFocus.y;
+        float z = cz - viewFocus.z;
+
+        //camera co-ords, eye on the +x axis looking at the origin
+        float x_ = m[0][0] * x + m[0][1] * y + m[0][2] * z;
+        float y_ = m[1][0] * x + m[1][1] * y + m[1][2] * z;
+        float z_ = m[2][0] * x + m[2][1] * y + m[2][2] * z;
+
+        if (x_ - r >= distance) return false;
+        if (x_ + r < -DEPTH_OF_VISION) return false;
+
+        //distance to each side of the frustum
+        float depth = distance - x_;
+        if (y_ - tanY * depth > r * secY) return false;
+        if (-y_ - tanY * depth > r * secY) return false;
+        if (z_ - tanZ * depth > r * secZ) return false;
+        if (-z_ - tanZ * depth > r * secZ) return false;
+
+        return true;
     }
 
     /**
@@ -344,6 +489,12 @@ public class CameraMan {
         v_.z += screenHeight / 2;
     }
 
+    /** as above for the point at index k of a flattened list */
+    public void scaleToScreen(float[] ps_, int k) {
+        ps_[k + 1] = ps_[k + 1] * theScale + screenWidth / 2;
+        ps_[k + 2] = ps_[k + 2] * -theScale + screenHeight / 2;
+    }
+
     /**
      * mute distant colors.
      *
@@ -370,7 +521,7 @@ public class CameraMan {
         g_ = (int) (g + f * (BACKGROUND_G - g));
         b_ = (int) (b + f * (BACKGROUND_B - b));
 
-        return new Color(r_, g_, b_);
+        return Color.quantised(r_, g_, b_);
     }
 
     public void move(float dx, float dy) {
@@ -9,9 +9,26 @@
 package org.flightclub;
 
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Clock has a thread and ticks
+ *
+ * A step ticks its observers phase by phase - input, then physics,
+ * camera and render. Within a phase, lower priority numbers tick first,
+ * then earlier additions. Something which need not tick every step (eg.
+ * a thermal trigger) can be given a divisor, n, and it then ticks every
+ * nth step with the deltas of the steps in between added up.
+ *
+ * Flying dots steer as part of their physics tick (see FlyingDotTicker),
+ * as a dot's next move depends on where this tick's move has taken it.
+ *
+ * When paused only the input, camera and render phases tick, so we can
+ * still look around and unpause.
+ *
+ * Observers may come and go during a step (a trigger makes a cloud, a
+ * cloud decays). A step works through the lists it started with - one
+ * added ticks from the next step, one removed is not ticked again.
  */
 public class Clock implements Runnable {
 
@@ -19,23 +36,181 @@ public class Clock implements Runnable {
         public void tick(float delta);
     }
 
-    Thread ticker = null;
+    /** the parts of a step, in the order they tick */
+    public enum Phase {
+        INPUT(true),
+        PHYSICS(false),
+        CAMERA(true),
+        RENDER(true);
+
+        /** ticks while the game is paused */
+        final boolean whenPaused;
+
+        Phase(boolean whenPaused) {
+            this.whenPaused = whenPaused;
+        }
+    }
+
+    /** priority to tick after the rest of a phase */
+    static final int LAST = Integer.MAX_VALUE;
+
+    /**
+     * an observer and when it ticks
+     */
+    static class Entry {
+        final Observer observer;
+        final Phase phase;
+        final int divisor;
+        final int priority;
+
+        // steps to go until we tick, and the delta saved up meanwhile
+        int countdown = 1;
+        float pending = 0;
+        volatile boolean removed = false;
+
+        Entry(Observer observer, Phase phase, int divisor, int priority) {
+            this.observer = observer;
+            this.phase = phase;
+            this.divisor = divisor;
+            this.priority = priority;
+        }
+    }
+
+    volatile Thread ticker = null;
     final int sleepTime;
-    final Vector<Observer> observers = new Vector<>();
     public long last = 0;
 
+    // per phase, in tick order. replaced rather than changed, so a step
+    // can carry on through the lists it started with
+    private volatile Entry[][] phases;
+
+    // run on the clock thread at the start of the next step
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    // System.nanoTime of the last step
+    private volatile long lastStep = System.nanoTime();
+
     boolean paused = false;
 
     Clock(int t) {
         sleepTime = t;
+        phases = new Entry[Phase.values().length][];
+        for (int i = 0; i < phases.length; i++)
+            phases[i] = new Entry[0];
     }
 
+    /**
+     * tick observer every step, in the physics phase
+     */
     void addObserver(Observer observer) {
-        observers.addElement(observer);
+        addObserver(observer, Phase.PHYSICS, 1, 0);
     }
 
-    void removeObserver(Observer observer) {
-        observers.removeElement(observer);
+    void addObserver(Observer observer, Phase phase) {
+        addObserver(observer, phase, 1, 0);
+    }
+
+    void addObserver(Observer observer, Phase phase, int divisor) {
+        addObserver(observer, phase, divisor, 0);
+    }
+
+    synchronized void addObserver(Observer observer, Phase phase, int divisor, int priority) {
+        if (divisor < 1)
+            throw new IllegalArgumentException("divisor " + divisor);
+
+        Entry entry = new Entry(observer, phase, divisor, priority);
+        Entry[] entries = phases[phase.ordinal()];
+
+        //after those of the same or lower priority
+        int i = entries.length;
+        while (i > 0 && entries[i - 1].priority > priority)
+            i--;
+
+        Entry[] added = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, added, 0, i);
+        added[i] = entry;
+        System.arraycopy(entries, i, added, i + 1, entries.length - i);
+        setPhase(phase, added);
+    }
+
+    synchronized void removeObserver(Observer observer) {
+        for (Phase phase : Phase.values()) {
+            Entry[] entries = phases[phase.ordinal()];
+            int i = indexOf(entries, observer);
+            if (i < 0) continue;
+
+            entries[i].removed = true;
+            Entry[] removed = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, removed, 0, i);
+            System.arraycopy(entries, i + 1, removed, i, entries.length - i - 1);
+            setPhase(phase, removed);
+            return;
+        }
+    }
+
+    /**
+     * tick observer in place of another, when it would have ticked
+     */
+    synchronized void replaceObserver(Observer old, Observer observer) {
+        for (Phase phase : Phase.values()) {
+            Entry[] entries = phases[phase.ordinal()];
+            int i = indexOf(entries, old);
+            if (i < 0) continue;
+
+            Entry entry = entries[i];
+            entry.removed = true;
+            Entry[] replaced = entries.clone();
+            replaced[i] = new Entry(observer, phase, entry.divisor, entry.priority);
+            setPhase(phase, replaced);
+            return;
+        }
+        addObserver(observer);
+    }
+
+    /**
+     * the observers of a phase, in the order they tick
+     */
+    Vector<Observer> getObservers(Phase phase) {
+        Vector<Observer> observers = new Vector<>();
+        for (Entry entry : phases[phase.ordinal()])
+            observers.addElement(entry.observer);
+        return observers;
+    }
+
+    /**
+     * observer's entry, or null if we do not tick it
+     */
+    Entry getEntry(Observer observer) {
+        for (Entry[] entries : phases) {
+            int i = indexOf(entries, observer);
+            if (i >= 0) return entries[i];
+        }
+        return null;
+    }
+
+    /**
+     * run task at the start of the next step, before any observer
+     * ticks - to change the world from another thread between steps
+     */
+    void runBeforeStep(Runnable task) {
+        tasks.add(task);
+    }
+
+    /** true if our thread is ticking, rather than eg. SimulationRunner */
+    boolean isRunning() {
+        return ticker != null;
+    }
+
+    private static int indexOf(Entry[] entries, Observer observer) {
+        for (int i = 0; i < entries.length; i++)
+            if (entries[i].observer == observer) return i;
+        return -1;
+    }
+
+    private void setPhase(Phase phase, Entry[] entries) {
+        Entry[][] changed = phases.clone();
+        changed[phase.ordinal()] = entries;
+        phases = changed;
     }
 
     public void start() {
@@ -57,16 +232,7 @@ public class Clock implements Runnable {
             float delta = (now - last) / 1000.0f;
             last = now;
 
-            for (int i = 0; i < observers.size(); i++) {
-                /*
-                    hack - when paused still tick the modelviewer so
-					we can change our POV and unpause
-				*/
-                if (i == 0 || !paused) {
-                    Observer c = observers.elementAt(i);
-                    c.tick(delta);
-                }
-            }
+            step(delta);
 
             long timeLeft = sleepTime + now - System.currentTimeMillis();
             if (timeLeft > 0) {
@@ -78,4 +244,57 @@ public class Clock implements Runnable {
         }
         ticker = null;
     }
+
+    /**
+     * tick each observer once. the clock thread passes in the wall
+     * clock time since the last tick, a headless runner may call this
+     * directly with a fixed delta
+     */
+    void step(float delta) {
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+            task.run();
+
+        lastStep = System.nanoTime();
+        Entry[][] entries = phases;
+        for (Phase phase : Phase.values())
+            if (phase.whenPaused || !paused)
+                tick(entries[phase.ordinal()], delta);
+    }
+
+    /**
+     * tick just the phases first to last, paused or not - eg. to play a
+     * replay on without reading input or drawing
+     */
+    void step(float delta, Phase first, Phase last) {
+        Entry[][] entries = phases;
+        for (int p = first.ordinal(); p <= last.ordinal(); p++)
+            tick(entries[p], delta);
+    }
+
+    private static void tick(Entry[] entries, float delta) {
+        for (Entry entry : entries) {
+            if (entry.removed)
+                continue;
+
+            if (--entry.countdown > 0) {
+                entry.pending += delta;
+                continue;
+            }
+
+            float d = entry.pending + delta;
+            entry.countdown = entry.divisor;
+            entry.pending = 0;
+            entry.observer.tick(d);
+        }
+    }
+
+    /**
+     * how far we are through the current step, 0 just after a step
+     * and 1 when the next one is due (or overdue)
+     */
+    float getStepFraction() {
+        float f = (System.nanoTime() - lastStep) / (sleepTime * 1000000.0f);
+        return Math.max(0, Math.min(1, f));
+    }
 }
@@ -21,22 +21,32 @@ public class Cloud implements CameraSubject, Clock.Observer {
     final boolean solid = true;
     final Color color;
     final Vector3d[] corners = new Vector3d[8];
+    // where the corners are kept in object3d
+    final int[] cornerIndexes = new int[8];
     final boolean inForeGround;
     ThermalTrigger trigger = null;
 
+    // where sky keeps us, see Sky.addCloud
+    int serial;
+    int cell;
+
     boolean decaying = false;
     float age = 0;
     final int t_nose;
     int t_mature;
     final int t_tail;
 
+    // scratch vector for placing corners
+    private final Vector3d v = new Vector3d();
+
     final double[] theta = new double[4];
     final double[] landa = new double[4];
 
     final float liftMax;
     final float myRnd;    //see getEye
+    final RandomStream random;
 
-    final float windSlope = (float) 0.5;//0.1 //lean towards +y due to wind (1 equals 45 degrees)
+    static final float WIND_SLOPE = (float) 0.5;//0.1 //lean towards +y due to wind (1 equals 45 degrees)
     float ds;
 
     static final float LIFT_FN_OUTER = 1;
@@ -45,8 +55,9 @@ public class Cloud implements CameraSubject, Clock.Observer {
     static final int CLOUD_COLOR = 230;
     static final int CLOUD_COLOR_STEP = 20;//how much darker are strong clouds
 
-    public Cloud(XCGame inApp, float x, float y, int inDuration, int inStrength) {
+    public Cloud(XCGame inApp, float x, float y, int inDuration, int inStrength, RandomStream inRandom) {
         app = inApp;
+        random = inRandom;
         object3d = new Object3dWithShadow(app);
 
         for (int i = 0; i < 8; i++)
@@ -59,8 +70,8 @@ public class Cloud implements CameraSubject, Clock.Observer {
 
         age = (float) 0.1;//small but non zero
         //ds = Sky.getWind()/app.getFrameRate();
-        myRnd = (float) (Tools3d.rnd(0, 1));//for camera angle
-        p = new Vector3d(x, y, Sky.getCloudBase());
+        myRnd = (float) (random.nextDouble());//for camera angle
+        p = new Vector3d(x, y, app.sky.getCloudBase());
 
         /*
          * cloud strength measured in multiples of glider (min) sink rate
@@ -88,9 +99,9 @@ public class Cloud implements CameraSubject, Clock.Observer {
 
     }
 
-    public Cloud(XCGame inApp, float x, float y, int inDuration) {
+    public Cloud(XCGame inApp, float x, float y, int inDuration, RandomStream inRandom) {
         //no cloud strength specifed, so use default of 1 = give climbs equal to min sink
-        this(inApp, x, y, inDuration, 1);
+        this(inApp, x, y, inDuration, 1, inRandom);
     }
 
     void destroyMe() {
@@ -100,9 +111,47 @@ public class Cloud implements CameraSubject, Clock.Observer {
         if (trigger != null) trigger.clouds.removeElement(this);
     }
 
+    /**
+     * enough to make us again - our seed gives the same shape
+     */
+    void save(WorldState out) {
+        out.putVector(p);
+        out.putLong(random.getSeed());
+        out.putInt((int) maxRadius);
+        out.putInt(t_mature);
+        out.putFloat(age);
+        out.putBoolean(decaying);
+        out.putInt(serial);
+        out.putTrigger(trigger);
+    }
+
+    static Cloud restore(XCGame app, WorldState in) {
+        Vector3d p = in.getVector(new Vector3d());
+        RandomStream random = new RandomStream(in.getLong());
+        int strength = in.getInt();
+        int duration = in.getInt();
+
+        Cloud cloud = new Cloud(app, p.x, p.y, duration, strength, random);
+        cloud.p.z = p.z;
+        cloud.age = in.getFloat();
+        cloud.decaying = in.getBoolean();
+        cloud.serial = in.getInt();
+        cloud.trigger = in.getTrigger();
+        if (cloud.trigger != null) cloud.trigger.clouds.addElement(cloud);
+
+        cloud.setCorners();
+        cloud.placeCorners();
+        cloud.object3d.updateShadow();
+        return cloud;
+    }
+
     private void buildSurfaces() {
         Vector<Vector3d> wire;
 
+        //add corners first so we know where to find them
+        for (int i = 0; i < 8; i++)
+            cornerIndexes[i] = object3d.addPoint(corners[i]);
+
         //front
         wire = new Vector<>();
         wire.addElement(corners[1]);
@@ -183,9 +232,13 @@ public class Cloud implements CameraSubject, Clock.Observer {
             return;
         }
 
-        p.y += Sky.getWind() * delta * app.timeMultiplier / 2.0f;
-        p.z = Sky.getCloudBase();
+        float dy = app.sky.getWind() * delta * app.timeMultiplier / 2.0f;
+        p.y += dy;
+        object3d.dp.set(0, dy, 0);
+        p.z = app.sky.getCloudBase();
+        if (inForeGround) app.sky.moveCloud(this);
         setCorners();
+        placeCorners();
         object3d.updateShadow();
     }
 
@@ -226,7 +279,6 @@ public class Cloud implements CameraSubject, Clock.Observer {
     }
 
     void setCorners() {
-        Vector3d v = new Vector3d();
         float radius = getRadius();
         float radiusBase = getRadiusBase(radius);
 
@@ -257,6 +309,14 @@ public class Cloud implements CameraSubject, Clock.Observer {
         corners[7].set(v).add(p);
     }
 
+    /**
+     * copy the corners into our 3d object
+     */
+    void placeCorners() {
+        for (int i = 0; i < 8; i++)
+            object3d.setPoint(cornerIndexes[i], corners[i]);
+    }
+
     void setSphericals() {
         double lower, upper;
 
@@ -264,12 +324,12 @@ public class Cloud implements CameraSubject, Clock.Observer {
         for (int quad = 0; quad < 4; quad++) {
             lower = quad * 90.0;
             upper = lower + 80.0;
-            theta[quad] = Tools3d.rnd(lower, upper);
+            theta[quad] = random.nextDouble(lower, upper);
         }
 
         //landas
         for (int quad = 0; quad < 4; quad++) {
-            landa[quad] = Tools3d.rnd(20.0, 50.0);//70
+            landa[quad] = random.nextDouble(20.0, 50.0);//70
         }
     }
 
@@ -283,7 +343,7 @@ public class Cloud implements CameraSubject, Clock.Observer {
         v.z = (float) (r * Math.sin(b));
 
         //wind slope - wind blows cloud tops downwind
-        v.y += windSlope * v.z;
+        v.y += WIND_SLOPE * v.z;
     }
 
     @Override
@@ -311,8 +371,8 @@ public class Cloud implements CameraSubject, Clock.Observer {
     }
 
     float getY(float z) {
-        float d = Sky.getCloudBase() - z;
-        return p.y - d * windSlope;
+        float d = app.sky.getCloudBase() - z;
+        return p.y - d * WIND_SLOPE;
     }
 
     float getLift(Vector3d inP) {
@@ -323,7 +383,7 @@ public class Cloud implements CameraSubject, Clock.Observer {
         float r = (float) Math.sqrt(dx * dx + dy * dy);
         float lift;
 
-        if (inP.z > Sky.getCloudBase()) return 0;
+        if (inP.z > app.sky.getCloudBase()) return 0;
         //if (age > t_nose + t_mature) return 1;
 
         if (r >= LIFT_FN_OUTER) {
@@ -9,10 +9,18 @@
 package org.flightclub;
 
 import java.awt.event.KeyEvent;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Vector;
 
+/**
+ * Queues key presses from the ui thread and hands them to subscribers
+ * on the clock thread.
+ *
+ * The queue is a ring of primitive records - key code, press or release,
+ * and when - with one thread (the ui's) adding and one (the clock's)
+ * taking. Each side only moves its own end, and publishes it through a
+ * volatile, so neither locks and nothing is allocated. Every event
+ * queued is handed out on the next tick.
+ */
 public class EventManager {
 
     /**
@@ -20,14 +28,27 @@ public class EventManager {
      *to user pressing keys
      */
     public static interface Interface {
-        public void keyPressed(KeyEvent e);
-        public void keyReleased(KeyEvent e);
+        public void keyPressed(int keyCode);
+        public void keyReleased(int keyCode);
     }
 
-    private final static int MAX_QUEUE_LENGTH = 20;
+    /** events we can hold between ticks, a power of two */
+    static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
 
     private final Vector<Interface> subscribers = new Vector<>();
-    private final Queue<KeyEvent> events = new LinkedList<>();
+
+    private final int[] keyCodes = new int[CAPACITY];
+    private final int[] types = new int[CAPACITY];
+    private final long[] whens = new long[CAPACITY];
+
+    // next to take, written by the clock thread only
+    private volatile long head = 0;
+    // next to add, written by the ui thread only
+    private volatile long tail = 0;
+
+    // when the event being handed out happened
+    private long when = 0;
 
     /**
      * add an object to the list of objects to be
@@ -42,29 +63,63 @@ public class EventManager {
     }
 
     /**
-     * add event to queue
+     * add event to queue, from the ui thread. false if the queue is full
      */
     public boolean addEvent(KeyEvent e) {
-        if (events.size() >= MAX_QUEUE_LENGTH)
+        return addEvent(e.getID(), e.getKeyCode(), e.getWhen());
+    }
+
+    /**
+     * as above - type is KeyEvent.KEY_PRESSED or KEY_RELEASED, when is
+     * in milliseconds
+     */
+    public boolean addEvent(int type, int keyCode, long when) {
+        if (type != KeyEvent.KEY_PRESSED && type != KeyEvent.KEY_RELEASED)
+            return true;
+
+        long t = tail;
+        if (t - head == CAPACITY)
             return false;
 
-        events.add(e);
+        int i = (int) t & MASK;
+        keyCodes[i] = keyCode;
+        types[i] = type;
+        whens[i] = when;
+        tail = t + 1;
         return true;
     }
 
     /**
-     * process event at head of the queue
+     * hand every event queued so far to the subscribers, in order
      */
-    public void processEvent() {
-        KeyEvent e = events.poll();
-        if (e == null)
-            return;
-
-        for (Interface i : subscribers) {
-            if (e.getID() == KeyEvent.KEY_RELEASED)
-                i.keyReleased(e);
-            else if (e.getID() == KeyEvent.KEY_PRESSED)
-                i.keyPressed(e);
+    public void processEvents() {
+        long h = head;
+        long t = tail;
+
+        for (; h < t; h++) {
+            int i = (int) h & MASK;
+            int keyCode = keyCodes[i];
+            int type = types[i];
+            when = whens[i];
+
+            //free the slot before dispatching, a subscriber may take a while
+            head = h + 1;
+
+            for (int k = 0; k < subscribers.size(); k++) {
+                Interface s = subscribers.elementAt(k);
+                if (type == KeyEvent.KEY_RELEASED)
+                    s.keyReleased(keyCode);
+                else
+                    s.keyPressed(keyCode);
+            }
         }
     }
+
+    /**
+     * when the event being handed out happened, in milliseconds - for
+     * subscribers which care how long a key was held
+     */
+    public long getEventTime() {
+        return when;
+    }
 }
@@ -0,0 +1,243 @@
+package org.flightclub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Plays back a log written by FlightRecorder.
+ *
+ * The log is mapped into memory, so a frame anywhere in hours of flying
+ * is a few reads away. Each tick we put every flying dot where the next
+ * frame says it was, instead of flying it - the clouds and hills carry
+ * on as normal, and the game should be built from the seed the log was
+ * recorded with (see readSeed) so they look the same as they did.
+ *
+ * If the recorder wrote keyframes, seek restores the world from the one
+ * before the frame wanted and plays the sky on from there, a few seconds
+ * at most, so a jump anywhere in a long flight takes the same time.
+ */
+public class FlightPlayer implements Clock.Observer {
+    final XCGame app;
+    final int numDots;
+    final int numFrames;
+    final int frameSize;
+
+    private final MappedByteBuffer log;
+    private int frame = 0;
+
+    // null if there are no keyframes, else where each one starts
+    private MappedByteBuffer keys = null;
+    private int[] keyframes = null;
+    private int keyframeInterval = 0;
+
+    private boolean playing = false;
+
+    /**
+     * the game must be initialised, with the same flying dots made in
+     * the same order as when the log was recorded
+     */
+    public FlightPlayer(XCGame theApp, File file) throws IOException {
+        app = theApp;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        log.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (log.limit() < FlightRecorder.HEADER_SIZE || log.getInt(0) != FlightRecorder.MAGIC)
+            throw new IOException(file + " is not a flight log");
+        if (log.getInt(4) != FlightRecorder.VERSION)
+            throw new IOException(file + " is version " + log.getInt(4) + ", we play version " + FlightRecorder.VERSION);
+
+        numDots = log.getInt(8);
+        frameSize = log.getInt(12);
+        if (numDots != app.flyingDots.dots.size() || frameSize != FlightRecorder.frameSize(numDots))
+            throw new IOException(file + " has " + numDots + " flying dots, the game has " + app.flyingDots.dots.size());
+
+        numFrames = (log.limit() - FlightRecorder.HEADER_SIZE) / frameSize;
+
+        File keyFile = FlightRecorder.keyframeFile(file);
+        if (keyFile.exists())
+            readKeyframes(keyFile);
+    }
+
+    /**
+     * find where each keyframe starts - the last may be cut short if the
+     * recorder did not finish
+     */
+    private void readKeyframes(File file) throws IOException {
+        MappedByteBuffer b;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            b = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        b.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (b.limit() < FlightRecorder.KEYS_HEADER_SIZE || b.getInt(0) != FlightRecorder.KEYS_MAGIC
+                || b.getInt(4) != FlightRecorder.KEYS_VERSION || b.getInt(8) <= 0)
+            throw new IOException(file + " is not a version " + FlightRecorder.KEYS_VERSION + " keyframe file");
+        int interval = b.getInt(8);
+
+        int[] starts = new int[16];
+        int n = 0;
+        int k = FlightRecorder.KEYS_HEADER_SIZE;
+        while (k + FlightRecorder.KEYFRAME_HEADER_SIZE <= b.limit()) {
+            int end = k + FlightRecorder.KEYFRAME_HEADER_SIZE + b.getInt(k + 4);
+            if (end > b.limit() || b.getInt(k) != n * interval)
+                break;
+
+            if (n == starts.length)
+                starts = Arrays.copyOf(starts, n * 2);
+            starts[n++] = k;
+            k = end;
+        }
+
+        if (n > 0) {
+            keys = b;
+            keyframes = Arrays.copyOf(starts, n);
+            keyframeInterval = interval;
+        }
+    }
+
+    /**
+     * the seed of the game the log was recorded from
+     */
+    public static long readSeed(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(FlightRecorder.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            if (header.hasRemaining() || header.getInt(0) != FlightRecorder.MAGIC)
+                throw new IOException(file + " is not a flight log");
+            return header.getLong(16);
+        }
+    }
+
+    public int getNumFrames() {
+        return numFrames;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    /**
+     * stop the dots flying themselves and play them from the log, a
+     * frame per tick
+     */
+    public void start() {
+        if (playing) return;
+        app.clock.replaceObserver(app.flyingDots, this);
+        playing = true;
+    }
+
+    @Override
+    public void tick(float delta) {
+        if (frame < numFrames)
+            show(frame++);
+    }
+
+    /**
+     * jump to frame n. we play the frames just before it too, quickly,
+     * so the tails trail behind as they did. with keyframes this starts
+     * us playing, if we were not already.
+     *
+     * safe from any thread - if the clock is running we jump at the
+     * start of its next step, on its thread, and getFrame catches up
+     * then. otherwise (eg. SimulationRunner) we jump now
+     */
+    public void seek(final int n) {
+        if (app.clock.isRunning()) {
+            app.clock.runBeforeStep(new Runnable() {
+                @Override
+                public void run() {
+                    seekNow(n);
+                }
+            });
+        } else {
+            seekNow(n);
+        }
+    }
+
+    // on the clock thread, or with the clock stopped
+    private void seekNow(int n) {
+        n = Math.max(0, Math.min(n, numFrames - 1));
+        if (keys != null) {
+            start();
+            seekKeyframe(n);
+        } else {
+            for (int f = Math.max(0, n - Glider.TAIL_LENGTH); f <= n; f++)
+                show(f);
+        }
+        frame = n + 1;
+    }
+
+    /**
+     * restore the keyframe before frame n, then play on to n - the dots
+     * from the log, the sky ticked by as much as it was each frame, and
+     * the camera following whoever it was following
+     */
+    private void seekKeyframe(int n) {
+        int k = keyframes[Math.min(n / keyframeInterval, keyframes.length - 1)];
+        int from = keys.getInt(k);
+
+        ByteBuffer state = keys.duplicate();
+        state.limit(k + FlightRecorder.KEYFRAME_HEADER_SIZE + keys.getInt(k + 4));
+        state.position(k + FlightRecorder.KEYFRAME_HEADER_SIZE);
+        WorldState.restore(app, state);
+
+        //the keyframe was taken after the physics, so the camera is
+        //still to follow. then we tick on, showing a frame each step,
+        //without reading keys or drawing
+        app.clock.step(getDelta(from), Clock.Phase.CAMERA, Clock.Phase.CAMERA);
+
+        for (int f = from + 1; f <= n; f++) {
+            frame = f;
+            app.clock.step(getDelta(f), Clock.Phase.PHYSICS, Clock.Phase.CAMERA);
+        }
+    }
+
+    // the clock's delta for the tick of frame n
+    private float getDelta(int n) {
+        return log.getFloat(FlightRecorder.HEADER_SIZE + n * frameSize + 4);
+    }
+
+    /**
+     * put every dot where frame n has it
+     */
+    void show(int n) {
+        int k = FlightRecorder.HEADER_SIZE + n * frameSize;
+        app.time = log.getFloat(k);
+        k += 8;
+
+        for (int i = 0; i < numDots; i++, k += FlightRecorder.DOT_SIZE) {
+            FlyingDot dot = app.flyingDots.dots.elementAt(i);
+            dot._p.set(dot.p);
+            dot.p.set(log.getFloat(k), log.getFloat(k + 4), log.getFloat(k + 8));
+            dot.v.set(log.getFloat(k + 12), log.getFloat(k + 16), log.getFloat(k + 20));
+            dot.roll = log.getShort(k + 24);
+
+            if (dot instanceof Glider) {
+                Glider glider = (Glider) dot;
+                int flags = log.get(k + 27);
+                glider.polarIndex = log.get(k + 26);
+                glider.landed = (flags & FlightRecorder.FLAG_LANDED) != 0;
+                glider.reachedGoal = (flags & FlightRecorder.FLAG_REACHED_GOAL) != 0;
+
+                //load hills and clouds ahead of the lead glider, as the game did
+                if (glider.triggerLoading && app.landscape != null)
+                    app.landscape.loadTilesAround(glider.p);
+            }
+
+            //a dot which stayed put (eg. landed) was not flown that tick
+            if (dot.p.x != dot._p.x || dot.p.y != dot._p.y || dot.p.z != dot._p.z)
+                dot.updatePose();
+            dot.updateMotion();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package org.flightclub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the state of every flying dot, each tick, to a binary log
+ * which FlightPlayer can play back.
+ *
+ * The log is a header then one fixed size frame per tick, so frame n
+ * is found by arithmetic rather than by reading everything before it.
+ * A frame is the game time and the tick's delta then, for each dot in
+ * the order the dots were made, its position, velocity, roll, point on
+ * the polar and whether it has landed or reached goal. All little
+ * endian.
+ *
+ * Frames are gathered in a large direct buffer and written out when it
+ * fills, so the clock thread rarely waits on the disk.
+ *
+ * Every so many ticks we also write a keyframe - the whole world's state
+ * (see WorldState) - to a second file alongside, so a player can jump
+ * anywhere in a long flight by restoring the keyframe before it and
+ * playing on from there. That file is a header (magic, version,
+ * interval, spare) then keyframes of: frame, length and the state.
+ * Keyframe k is of frame k * interval.
+ */
+public class FlightRecorder implements Clock.Observer {
+    static final int MAGIC = 0x464c4f47;
+    static final int VERSION = 2;
+
+    /** magic, version, dots, frame size, seed, spare */
+    static final int HEADER_SIZE = 32;
+
+    /** p and v (6 floats), roll (short), polar index and flags (bytes) */
+    static final int DOT_SIZE = 6 * 4 + 2 + 1 + 1;
+
+    static final int FLAG_LANDED = 1;
+    static final int FLAG_REACHED_GOAL = 2;
+
+    static final int BUFFER_SIZE = 1 << 20;
+
+    static final int KEYS_MAGIC = 0x464c4b46;
+    static final int KEYS_VERSION = 2;
+    static final int KEYS_HEADER_SIZE = 16;
+
+    /** frame and length */
+    static final int KEYFRAME_HEADER_SIZE = 8;
+
+    /** ticks between keyframes, ten seconds of play */
+    static final int KEYFRAME_INTERVAL = 10 * XCGame.FRAME_RATE;
+
+    final XCGame app;
+    final int numDots;
+    final int frameSize;
+    final int keyframeInterval;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long frames = 0;
+
+    // null if not writing keyframes
+    private FileChannel keys;
+    private final ByteBuffer keyframeHeader;
+
+    /**
+     * start recording the (initialised) game to the file, from the
+     * next tick on
+     */
+    public FlightRecorder(XCGame theApp, File file) throws IOException {
+        this(theApp, file, KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * as above, with a keyframe every so many ticks, or none if zero
+     */
+    public FlightRecorder(XCGame theApp, File file, int keyframeInterval) throws IOException {
+        app = theApp;
+        this.keyframeInterval = keyframeInterval;
+        numDots = app.flyingDots.dots.size();
+        frameSize = frameSize(numDots);
+
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, HEADER_SIZE + frameSize));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(numDots);
+        buffer.putInt(frameSize);
+        buffer.putLong(app.getSeed());
+        buffer.putLong(0);
+
+        keyframeHeader = ByteBuffer.allocate(Math.max(KEYS_HEADER_SIZE, KEYFRAME_HEADER_SIZE));
+        keyframeHeader.order(ByteOrder.LITTLE_ENDIAN);
+        if (keyframeInterval > 0) {
+            keys = FileChannel.open(keyframeFile(file).toPath(), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            keyframeHeader.putInt(KEYS_MAGIC);
+            keyframeHeader.putInt(KEYS_VERSION);
+            keyframeHeader.putInt(keyframeInterval);
+            keyframeHeader.putInt(0);
+            keyframeHeader.flip();
+            write(keys, keyframeHeader);
+        }
+
+        //once everything has moved, so a keyframe is of a whole step's
+        //physics and the camera is still to follow
+        app.clock.addObserver(this, Clock.Phase.PHYSICS, 1, Clock.LAST);
+    }
+
+    static int frameSize(int numDots) {
+        return 8 + numDots * DOT_SIZE;
+    }
+
+    /**
+     * where the keyframes for a log are kept
+     */
+    public static File keyframeFile(File log) {
+        return new File(log.getPath() + ".keys");
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    @Override
+    public void tick(float delta) {
+        if (buffer.remaining() < frameSize) {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.err.println("recorder: " + e + ", stopped recording");
+                app.clock.removeObserver(this);
+                return;
+            }
+        }
+
+        if (keys != null && frames % keyframeInterval == 0)
+            writeKeyframe();
+
+        buffer.putFloat(app.time);
+        buffer.putFloat(delta);
+        for (int i = 0; i < numDots; i++) {
+            FlyingDot dot = app.flyingDots.dots.elementAt(i);
+            buffer.putFloat(dot.p.x);
+            buffer.putFloat(dot.p.y);
+            buffer.putFloat(dot.p.z);
+            buffer.putFloat(dot.v.x);
+            buffer.putFloat(dot.v.y);
+            buffer.putFloat(dot.v.z);
+            buffer.putShort((short) dot.roll);
+
+            int polarIndex = 0;
+            int flags = 0;
+            if (dot instanceof Glider) {
+                Glider glider = (Glider) dot;
+                polarIndex = glider.polarIndex;
+                if (glider.landed) flags |= FLAG_LANDED;
+                if (glider.reachedGoal) flags |= FLAG_REACHED_GOAL;
+            }
+            buffer.put((byte) polarIndex);
+            buffer.put((byte) flags);
+        }
+        frames++;
+    }
+
+    private void writeKeyframe() {
+        ByteBuffer state = WorldState.save(app);
+        keyframeHeader.clear();
+        keyframeHeader.putInt((int) frames);
+        keyframeHeader.putInt(state.remaining());
+        keyframeHeader.flip();
+
+        try {
+            write(keys, keyframeHeader);
+            write(keys, state);
+        } catch (IOException e) {
+            System.err.println("recorder: " + e + ", stopped writing keyframes");
+            closeKeys();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        write(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer b) throws IOException {
+        while (b.hasRemaining())
+            channel.write(b);
+    }
+
+    private void closeKeys() {
+        if (keys == null) return;
+        try {
+            keys.close();
+        } catch (IOException e) {
+            System.err.println("recorder: " + e);
+        }
+        keys = null;
+    }
+
+    /**
+     * stop recording, write out what is left and close the file
+     */
+    public void close() throws IOException {
+        app.clock.removeObserver(this);
+        try {
+            flush();
+        } finally {
+            channel.close();
+            closeKeys();
+        }
+    }
+}
@@ -32,9 +32,8 @@ public class FlyingBody extends FlyingDot {
     }
 
     @Override
-    public void tick(float delta) {
-        //update position and velocity
-        super.tick(delta);
+    void updatePose() {
+        super.updatePose();
 
         //flap wings etc
         //body0.timeStep();
@@ -44,24 +43,36 @@ public class FlyingBody extends FlyingDot {
         body1.updateShadow();
     }
 
+    @Override
+    void updateMotion() {
+        super.updateMotion();
+        p.minus(_p, body1.dp);
+    }
+
     public void rotateBody() {
-        for (int i = 0; i < body0.points.size(); i++) {
-            Vector3d p1 = body1.points.elementAt(i);
-            Vector3d p0 = body0.points.elementAt(i);
+        float[] ps0 = body0.ps;
+        float[] ps1 = body1.ps;
 
-            Vector3d xp1 = new Vector3d(axisX).scaleBy(p0.x);
-            Vector3d yp1 = new Vector3d(axisY).scaleBy(p0.y);
-            Vector3d zp1 = new Vector3d(axisZ).scaleBy(p0.z);
+        for (int k = 0; k < body0.numPoints * 3; k += 3) {
+            float x = ps0[k];
+            float y = ps0[k + 1];
+            float z = ps0[k + 2];
 
-            p1.x = xp1.x + yp1.x + zp1.x;
-            p1.y = xp1.y + yp1.y + zp1.y;
-            p1.z = xp1.z + yp1.z + zp1.z;
+            ps1[k] = axisX.x * x + axisY.x * y + axisZ.x * z;
+            ps1[k + 1] = axisX.y * x + axisY.y * y + axisZ.y * z;
+            ps1[k + 2] = axisX.z * x + axisY.z * y + axisZ.z * z;
         }
     }
 
     public void translateBody() {
-        for (Vector3d point : body1.points)
-            point.add(p);
+        float[] ps1 = body1.ps;
+
+        for (int k = 0; k < body1.numPoints * 3; k += 3) {
+            ps1[k] += p.x;
+            ps1[k + 1] += p.y;
+            ps1[k + 2] += p.z;
+        }
+        body1.boundsValid = false;
     }
 
     float getBodyHeight() {
@@ -22,6 +22,9 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
     final XCGame app;
     Vector3d v;
     Vector3d p = new Vector3d();
+
+    // p before this tick's move
+    final Vector3d _p = new Vector3d();
     float speed;
     float ds;//distance per frame - hack
     final float my_turn_radius;
@@ -32,6 +35,13 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
     final Vector3d axisY = new Vector3d();
     final Vector3d axisZ = new Vector3d();
 
+    // scratch vectors - reused each tick so we make no garbage
+    private final Vector3d dv = new Vector3d();
+    private final Vector3d axisX0 = new Vector3d();
+    private final Vector3d axisZ0 = new Vector3d();
+    private final Vector3d p_ = new Vector3d();
+    private final Vector3d p__ = new Vector3d();
+
     Tail tail = null;
     MovementManager moveManager = null;
 
@@ -43,6 +53,9 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
     static final float ROLL_MAX_ANGLE = (float) (Math.PI / 4);
     static final Vector3d[] AXIS_ZS = new Vector3d[ROLL_STEPS * 2 + 1];
 
+    /** unit vertical - read only */
+    static final Vector3d UP = new Vector3d(0, 0, 1);
+
     /**
      * generate an array of unit 'up' vectors for
      * different angles of bank (v points along the y axis)
@@ -61,7 +74,7 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
 
     public FlyingDot(XCGame theApp, float inSpeed, float inTurnRadius) {
         app = theApp;
-        app.clock.addObserver(this);
+        app.flyingDots.add(this);
 
         speed = inSpeed;
         ds = speed * app.timePerFrame;
@@ -74,6 +87,16 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
         isUser = inIsUser;
     }
 
+    /**
+     * have the camera cut to subject - unless we are another player's
+     * glider (see Lockstep), which our camera leaves alone
+     */
+    void cutTo(CameraSubject subject) {
+        if (isUser && this != app.pilot)
+            return;
+        app.cameraMan.cutSetup(subject, isUser);
+    }
+
     public void init(Vector3d inP) {
         p = new Vector3d(inP);
         setLocalFrame();
@@ -97,12 +120,24 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
     }
 
     /**
-     * update position, velocity and local frame
+     * sense then commit, on this thread. the game ticks all its dots
+     * together, see FlyingDotTicker
      */
     @Override
     public void tick(float delta) {
+        _p.set(p);
+        sense(delta);
+        updateMotion();
+        commit(delta);
+    }
+
+    /**
+     * update position, velocity and local frame. may run on any thread
+     * alongside other dots - only change this dot and only read the world
+     */
+    void sense(float delta) {
         p.add(v);
-        p.y += Sky.getWind() * app.timePerFrame;
+        p.y += app.sky.getWind() * app.timePerFrame;
 
         //hack - may have changed game speed (otherwise ds is constant)
         ds = speed * app.timePerFrame;
@@ -116,10 +151,70 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
         avoidHills();
 
         sink();
+        updatePose();
+    }
+
+    /**
+     * bring our local frame, tail etc. up to date with p, v and roll -
+     * eg. after a replay has set them (see FlightPlayer)
+     */
+    void updatePose() {
         setLocalFrame();
         if (tail != null) tail.moveTo(p);
     }
 
+    /**
+     * tell our objects how far we moved this tick, so they can be drawn
+     * part way along it
+     */
+    void updateMotion() {
+        if (tail != null) p.minus(_p, tail.headDp);
+    }
+
+    /**
+     * act on the rest of the game. called on the clock thread, after
+     * every dot has sensed, in the order the dots were made
+     */
+    void commit(float delta) {
+    }
+
+    /**
+     * where we are, where we are going and how we got here (our tail)
+     */
+    void save(WorldState out) {
+        out.putVector(p);
+        out.putVector(v);
+        out.putFloat(speed);
+        out.putFloat(ds);
+        out.putInt(roll);
+
+        int n = (tail == null) ? 0 : tail.numPoints;
+        out.putInt(n);
+        Vector3d q = new Vector3d();
+        for (int i = 0; i < n; i++)
+            out.putVector(tail.getPoint(i, q));
+
+        if (moveManager != null) moveManager.save(out);
+    }
+
+    void restore(WorldState in) {
+        in.getVector(p);
+        in.getVector(v);
+        speed = in.getFloat();
+        ds = in.getFloat();
+        roll = in.getInt();
+
+        //the pose from p, v and roll, then the tail as it was
+        _p.set(p);
+        updatePose();
+        int n = in.getInt();
+        for (int i = 0; i < n; i++)
+            tail.setPoint(i, in.getFloat(), in.getFloat(), in.getFloat());
+        updateMotion();
+
+        if (moveManager != null) moveManager.restore(in);
+    }
+
     protected void sink() {
         // overrider this method for different flying machines
         v.z = 0;
@@ -129,7 +224,7 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
      * Set i, j and k vectors so v is along the y axis - ie do pitch and yaw
      */
     private void setLocalFrame() {
-        axisX.set(v).cross(new Vector3d(0, 0, 1)).makeUnit();
+        axisX.set(v).cross(UP).makeUnit();
         axisY.set(v).makeUnit();
         axisZ.set(axisX).cross(axisY);
 
@@ -139,18 +234,11 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
 
         Vector3d up = AXIS_ZS[roll + ROLL_STEPS];
 
-        Vector3d axisX0 = new Vector3d(axisX);
-        Vector3d axisZ0 = new Vector3d(axisZ);
-
-        Vector3d dx = new Vector3d(axisX0).scaleBy(up.x);
-        Vector3d dz = new Vector3d(axisZ0).scaleBy(up.z);
-
-        axisZ.set(dx).add(dz);
-
-        dx.set(axisX0).scaleBy(up.z);
-        dz.set(axisZ0).scaleBy(-up.x);
+        axisX0.set(axisX);
+        axisZ0.set(axisZ);
 
-        axisX.set(dx).add(dz);
+        axisZ.set(axisX0).scaleBy(up.x).add(dv.set(axisZ0).scaleBy(up.z));
+        axisX.set(axisX0).scaleBy(up.z).add(dv.set(axisZ0).scaleBy(-up.x));
     }
 
     void roll(float dir) {
@@ -198,8 +286,8 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
      */
     void makeTurn(float dir) {
         v.z = 0;    //work in xy plane
-        Vector3d w = new Vector3d(0, 0, 1).cross(v).scaleBy(-dir * ds / my_turn_radius);
-        v.add(w).scaleToLength(ds); //ds is in xy only
+        dv.set(UP).cross(v).scaleBy(-dir * ds / my_turn_radius);
+        v.add(dv).scaleToLength(ds); //ds is in xy only
         roll(dir);
     }
 
@@ -210,7 +298,7 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
         if (moveManager.joinedCircuit()) return;
         if (app.landscape == null) return;
 
-        Vector3d p_ = p.plus(v);
+        p.plus(v, p_);
 
         float h = p.z - app.landscape.getHeight(p.x, p.y);
         float h_ = p.z - app.landscape.getHeight(p_.x, p_.y);
@@ -223,8 +311,8 @@ public class FlyingDot implements Clock.Observer, CameraSubject {
             //float r = (h - ONE_WING) * (ds/dh) * (ds/dh);
 
             // turn left or right ? see if moving right a bit gives a greater h than straight on
-            Vector3d w = v.crossed(new Vector3d(0, 0, 1)).scaleBy(ds / my_turn_radius);
-            Vector3d p__ = p_.plus(w);
+            v.crossed(UP, dv).scaleBy(ds / my_turn_radius);
+            p_.plus(dv, p__);
             float h__ = p.z - app.landscape.getHeight(p__.x, p__.y);
             if (h__ >= h_) {
                 makeTurn(1); //turn right
@@ -0,0 +1,90 @@
+package org.flightclub;
+
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ticks every flying dot in two phases.
+ *
+ * First each dot senses - it moves, steers and looks up lift. A dot only
+ * writes to itself here and only reads the world (sky, landscape), which
+ * holds still until all dots have sensed, so a big gaggle is shared out
+ * across the cores. Then each dot commits, in the order they were
+ * created, anything that touches the rest of the game - camera cuts,
+ * loading tiles, chasing another dot. Either way the outcome is the same.
+ */
+public class FlyingDotTicker implements Clock.Observer {
+    /** fewer dots than this and we sense on the clock thread */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    /** dots per fork/join task */
+    static final int BATCH_SIZE = 16;
+
+    // one pool of worker threads for every game in this vm
+    private static ForkJoinPool pool = null;
+
+    final Vector<FlyingDot> dots = new Vector<>();
+    boolean parallel = true;
+
+    void add(FlyingDot dot) {
+        dots.addElement(dot);
+    }
+
+    @Override
+    public void tick(float delta) {
+        int n = dots.size();
+
+        for (int i = 0; i < n; i++) {
+            FlyingDot dot = dots.elementAt(i);
+            dot._p.set(dot.p);
+        }
+
+        if (parallel && n >= PARALLEL_THRESHOLD) {
+            getPool().invoke(new Sense(0, n, delta));
+        } else {
+            for (int i = 0; i < n; i++)
+                dots.elementAt(i).sense(delta);
+        }
+
+        for (int i = 0; i < n; i++) {
+            FlyingDot dot = dots.elementAt(i);
+            dot.updateMotion();
+            dot.commit(delta);
+        }
+    }
+
+    static synchronized ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool();
+        return pool;
+    }
+
+    /**
+     * sense dots from..to-1, splitting in half until the batch is small
+     */
+    class Sense extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int from, to;
+        final float delta;
+
+        Sense(int from, int to, float delta) {
+            this.from = from;
+            this.to = to;
+            this.delta = delta;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++)
+                    dots.elementAt(i).sense(delta);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new Sense(from, mid, delta), new Sense(mid, to, delta));
+        }
+    }
+}
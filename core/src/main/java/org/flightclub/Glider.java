@@ -31,10 +31,16 @@ public class Glider extends FlyingBody {
     CameraSubject cutSubject = null;
     int cutCount = 0;
 
+    // cut to me next commit - see sink
+    boolean cutToMe = false;
+
     // hack var for camera position - left or right depending
     int lastEyeX = 1;
     boolean triggerLoading = false;
 
+    // did we fly this tick
+    private boolean sensed = false;
+
     // units of dist (km) per time (minute)
     final static float SPEED = (float) 1;
     // i.e. glide angle of 8
@@ -43,6 +49,9 @@ public class Glider extends FlyingBody {
     // polar curve
     final static float[][] POLAR = {{1, 1}, {(float) 1.5, (float) 2.1}};
 
+    // this glider's polar, see XCGame.setPolar
+    final float[][] polar;
+
     public static final int TAIL_LENGTH = 40;
     public static final Color TAIL_COLOR = Color.LIGHT_GRAY;
 
@@ -54,7 +63,8 @@ public class Glider extends FlyingBody {
     }
 
     public Glider(XCGame app, Vector3d p, boolean isUser) {
-        super(app, SPEED, TURN_RADIUS, isUser);
+        super(app, SPEED, app.turnRadius, isUser);
+        polar = app.polar;
 
         GliderShape gliderShape;
         if (!isUser) {
@@ -71,7 +81,8 @@ public class Glider extends FlyingBody {
     public Glider(XCGame app, Vector3d p, boolean isUser, boolean isRigid) {
         //hack to get a couple of faster pink machines
         //sailplane/rigid
-        super(app, SPEED * (float) 1.5, TURN_RADIUS * (float) 1.2, isUser);
+        super(app, SPEED * (float) 1.5, app.turnRadius * (float) 1.2, isUser);
+        polar = app.polar;
 
         GliderShape gliderShape = new GliderShape(app, Color.PINK);
 
@@ -121,7 +132,7 @@ public class Glider extends FlyingBody {
 
             if (cloud == null) {
                 //try again later, fly downwind for now
-                this.moveManager.setTargetPoint(new Vector3d(p.x, p.y + 8, p.z));
+                this.moveManager.setTargetPoint(p.x, p.y + 8, p.z);
                 tryLater = 25;
                 return;
             }
@@ -153,7 +164,7 @@ public class Glider extends FlyingBody {
     @Override
     protected void sink() {
         //float lift = SINK_RATE;
-        float lift = POLAR[polarIndex][1] * SINK_RATE;
+        float lift = polar[polarIndex][1] * SINK_RATE;
 		
         /*
           if (true) {
@@ -183,7 +194,7 @@ public class Glider extends FlyingBody {
         if (app.sky != null) {
             Cloud cloud = app.sky.getCloudAt(p);
             if (cloud != null) {
-                if (p.z < Sky.getCloudBase() - this.getBodyHeight()) {
+                if (p.z < app.sky.getCloudBase() - this.getBodyHeight()) {
                     lift += cloud.getLift(p);
                 } else {
                     //stick to base of cloud and f*** off downwind
@@ -213,13 +224,47 @@ public class Glider extends FlyingBody {
             //System.out.println("Decaying cloud - move on");
             moveManager.clearControllers();
             if (isUser) {
-                app.cameraMan.cutSetup(this, isUser);
+                cutToMe = true;
             } else {
                 gotoNextLiftSource();
             }
         }
     }
 
+    @Override
+    void save(WorldState out) {
+        super.save(out);
+        out.putBoolean(landed);
+        out.putInt(tryLater);
+        out.putBoolean(demoMode);
+        out.putBoolean(reachedGoal);
+        out.putInt(polarIndex);
+        out.putBoolean(cutPending);
+        out.putInt(cutWhen);
+        out.putSubject(cutSubject);
+        out.putInt(cutCount);
+        out.putBoolean(cutToMe);
+        out.putInt(lastEyeX);
+        out.putBoolean(triggerLoading);
+    }
+
+    @Override
+    void restore(WorldState in) {
+        super.restore(in);
+        landed = in.getBoolean();
+        tryLater = in.getInt();
+        demoMode = in.getBoolean();
+        reachedGoal = in.getBoolean();
+        polarIndex = in.getInt();
+        cutPending = in.getBoolean();
+        cutWhen = in.getInt();
+        cutSubject = in.getSubject();
+        cutCount = in.getInt();
+        cutToMe = in.getBoolean();
+        lastEyeX = in.getInt();
+        triggerLoading = in.getBoolean();
+    }
+
     void landed() {
         roll = 0;
         tail.reset(p);
@@ -228,12 +273,27 @@ public class Glider extends FlyingBody {
     }
 
     @Override
-    public void tick(float delta) {
+    void sense(float delta) {
+        sensed = false;
+        if (isUser && demoMode)
+            return;
+
+        if (landed || reachedGoal)
+            return;
+
+        super.sense(delta);
+        sensed = true;
+    }
+
+    @Override
+    void commit(float delta) {
         if (isUser) {
             if (demoMode)
                 return;
 
-            if (reachedGoal)
+            if (this != app.pilot) {
+                //another player's glider, see Lockstep
+            } else if (reachedGoal)
                 app.textMessage = "Well done ! You have reached goal. You flew " + (int) (p.y / 2) + "km in " + (int) app.time / 2 + " mins. Press <y> to fly again.";
             else if (landed)
                 app.textMessage = "You have landed - you flew " + (int) (p.y / 2) + "km. Press <y> to fly again.";
@@ -241,10 +301,15 @@ public class Glider extends FlyingBody {
                 app.textMessage = "D: " + (int) (p.y / 2) + "km  T: " + (int) app.time / 2 + "mins  H: " + (int) ((p.z / 2) * 1500) + "m ";
         }
 
-        if (landed || reachedGoal)
+        if (!sensed)
             return;
 
-        super.tick(delta);
+        super.commit(delta);
+
+        if (cutToMe) {
+            cutTo(this);
+            cutToMe = false;
+        }
 
         //delayed cut hack 5/10
         if (cutPending) {
@@ -280,7 +345,7 @@ public class Glider extends FlyingBody {
           todo - camera decide how to track without
           losing site of the glider
         */
-        app.cameraMan.cutSetup(cutSubject, isUser);
+        cutTo(cutSubject);
         cutPending = false;
         cutCount = 0;
         cutSubject = null;
@@ -318,7 +383,8 @@ public class Glider extends FlyingBody {
         gotoNextLiftSource();
 
         if (isUser) {
-            app.cameraMan.setMode(CameraMan.Mode.SELF);
+            if (this == app.pilot)
+                app.cameraMan.setMode(CameraMan.Mode.SELF);
             demoMode = false;
         }
     }
@@ -332,7 +398,7 @@ public class Glider extends FlyingBody {
      */
     void setPolarIndex(int i) {
         polarIndex = i;
-        super.setSpeed(POLAR[polarIndex][0] * SPEED);
+        super.setSpeed(polar[polarIndex][0] * SPEED);
     }
 }
 
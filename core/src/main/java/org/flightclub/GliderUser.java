@@ -21,10 +21,17 @@ public class GliderUser extends Glider implements EventManager.Interface {
     public static final Color TAIL_COLOR = new Color(120, 120, 120);
 
     public GliderUser(XCGame app, Vector3d p) {
+        this(app, p, app.eventManager);
+    }
+
+    /**
+     * steered by the keys handed out by events, eg. another player's
+     */
+    public GliderUser(XCGame app, Vector3d p, EventManager events) {
         //set flag so camera will follow my cuts when in mode 1
         //(see glider.gotoNextLiftSource)
         super(app, p, true);
-        app.eventManager.subscribe(this);
+        events.subscribe(this);
     }
 
     @Override
@@ -34,20 +41,19 @@ public class GliderUser extends Glider implements EventManager.Interface {
     }
 
     void checkBounds() {
-        if (p.x > Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(new Vector3d(0, p.y, 0));
-        if (p.x < -Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(new Vector3d(0, p.y, 0));
-        if (p.y < -Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(new Vector3d(p.x, 0, 0));
+        if (p.x > Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(0, p.y, 0);
+        if (p.x < -Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(0, p.y, 0);
+        if (p.y < -Landscape.TILE_WIDTH / 2) moveManager.setTargetPoint(p.x, 0, 0);
     }
 
     @Override
-    public void tick(float delta) {
-        super.tick(delta);
+    void sense(float delta) {
+        super.sense(delta);
         checkBounds();
     }
 
     @Override
-    public void keyPressed(KeyEvent e) {
-        int key = e.getKeyCode();
+    public void keyPressed(int key) {
         switch (key) {
             case KeyEvent.VK_A:
             case KeyEvent.VK_LEFT:
@@ -81,8 +87,7 @@ public class GliderUser extends Glider implements EventManager.Interface {
     }
 
     @Override
-    public void keyReleased(KeyEvent e) {
-        int key = e.getKeyCode();
+    public void keyReleased(int key) {
         switch (key) {
             case KeyEvent.VK_A:
             case KeyEvent.VK_LEFT:
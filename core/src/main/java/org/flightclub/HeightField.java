@@ -0,0 +1,62 @@
+package org.flightclub;
+
+import java.util.Vector;
+
+/**
+ * Ground heights over a patch of landscape, sampled on a regular grid.
+ *
+ * A lookup is a bilinear blend of the four samples around the point
+ * rather than a hunt through the hills and a re-evaluation of their
+ * height functions. Outside the patch the ground is flat (zero).
+ */
+public class HeightField {
+    /** sample spacing - a quarter of the finest hill tile */
+    static final float STEP = (float) 0.125;
+
+    final float x0, y0;
+    final int nx, ny;
+    final float[] hs;
+
+    /**
+     * sample the hills over the rectangle x0..x1, y0..y1 - where hills
+     * overlap the first one containing a point wins
+     */
+    HeightField(float x0, float y0, float x1, float y1, Vector<Hill> hills) {
+        this.x0 = x0;
+        this.y0 = y0;
+        nx = (int) Math.ceil((x1 - x0) / STEP) + 1;
+        ny = (int) Math.ceil((y1 - y0) / STEP) + 1;
+        hs = new float[nx * ny];
+
+        for (int j = 0; j < ny; j++) {
+            float y = y0 + j * STEP;
+            for (int i = 0; i < nx; i++) {
+                float x = x0 + i * STEP;
+                for (int k = 0; k < hills.size(); k++) {
+                    Hill hill = hills.elementAt(k);
+                    if (hill.contains(x, y)) {
+                        hs[j * nx + i] = hill.getHeight(x, y);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    public float getHeight(float x, float y) {
+        float u = (x - x0) / STEP;
+        float v = (y - y0) / STEP;
+        if (u < 0 || v < 0 || u >= nx - 1 || v >= ny - 1)
+            return 0;
+
+        int i = (int) u;
+        int j = (int) v;
+        float fu = u - i;
+        float fv = v - j;
+
+        int k = j * nx + i;
+        float h0 = hs[k] + fu * (hs[k + 1] - hs[k]);
+        float h1 = hs[k + nx] + fu * (hs[k + nx + 1] - hs[k + nx]);
+        return h0 + fv * (h1 - h0);
+    }
+}
@@ -136,6 +136,9 @@ public class Hill implements CameraSubject {
             corners[3] = new Vector3d(x2, y1, getZ(i, j));
         }
 
+        for (Vector3d corner : corners)
+            if (corner.z > maxH) maxH = corner.z;
+
         object3d.addTile(corners, color, true, true);
         //object3d.addTile(corners, color, false, false);
     }
@@ -194,6 +197,21 @@ public class Hill implements CameraSubject {
         }
     }
 
+    /**
+     * bounding box of the area we contain as {x min, y min, x max, y max}
+     */
+    float[] getBounds() {
+        float frontFace;
+        if (face == FACE_CURVY) frontFace = 2;
+        else frontFace = 1;
+
+        if (orientation == Orientation.X) {
+            return new float[]{x0, y0 - frontFace, x0 + 2 + spineLength, y0 + 1};
+        } else {
+            return new float[]{x0 - 1, y0, x0 + frontFace, y0 + 2 + spineLength};
+        }
+    }
+
     /*
      * return h at point i along spine and j away from spine
      *
@@ -218,9 +236,7 @@ public class Hill implements CameraSubject {
             }
         }
 
-        float h = f1 * f2;
-        if (h > maxH) maxH = h;
-        return h;
+        return f1 * f2;
     }
 
     /*
@@ -44,23 +44,39 @@ public class JetTrail extends FlyingDot {
         tail.init(p);
     }
 
+    @Override
+    void save(WorldState out) {
+        super.save(out);
+        out.putDot(buzzThis);
+    }
+
+    @Override
+    void restore(WorldState in) {
+        super.restore(in);
+        buzzThis = in.getDot();
+    }
+
     void checkBounds() {
         if (buzzThis != null) {
-            Vector3d t = new Vector3d(buzzThis.p.x, buzzThis.p.y + TURN_RADIUS, 0);
+            float tx = buzzThis.p.x;
+            float ty = buzzThis.p.y + TURN_RADIUS;
             if (p.x > buzzThis.p.x + RANGE
                     || p.x < buzzThis.p.x - RANGE) {
-                moveManager.setTargetPoint(t);
+                moveManager.setTargetPoint(tx, ty, 0);
             }
             if (p.y > buzzThis.p.y + RANGE
                     || p.y < buzzThis.p.y - RANGE) {
-                moveManager.setTargetPoint(t);
+                moveManager.setTargetPoint(tx, ty, 0);
             }
         }
     }
 
+    /**
+     * buzzThis may still be moving during sense
+     */
     @Override
-    public void tick(float delta) {
-        super.tick(delta);
+    void commit(float delta) {
+        super.commit(delta);
         checkBounds();
     }
 }
@@ -18,14 +18,47 @@ import java.util.Vector;
 public class Landscape implements CameraSubject {
     // hills in order heading downwind
     final Tile[] tiles;
-    static XCGame app;
+    final XCGame app;
     int currentTile;
     // cycle through the different hill shapes
     static final int TILE_WIDTH = 20;
     static final int MAX_TILES = 10;
 
+    /**
+     * what a tile has on it. the last tile, with the goal line on, is
+     * always the same
+     */
+    public enum Terrain {
+        FLAT,
+        HILL_1,
+        HILL_2,
+        STORM,
+        BLUE_HOLE,
+        MOUNTAIN_1,
+        MOUNTAIN_2
+    }
+
+    /** the course tile by tile, up to the last */
+    static final Terrain[] DEFAULT_LAYOUT = {
+            Terrain.FLAT,
+            Terrain.FLAT,
+            Terrain.HILL_2,
+            Terrain.STORM,
+            Terrain.HILL_1,
+            Terrain.FLAT,
+            Terrain.MOUNTAIN_1,
+            Terrain.BLUE_HOLE,
+            Terrain.MOUNTAIN_2
+    };
+
+    final Terrain[] layout;
+
+    /** names the game's stream of per tile streams */
+    static final long RANDOM_KEY = 0x4c414e44L;
+
     public Landscape(XCGame theApp) {
         app = theApp;
+        layout = app.layout;
         tiles = new Tile[MAX_TILES];
         for (int t = 0; t < MAX_TILES; t++)
             tiles[t] = new Tile();
@@ -40,6 +73,8 @@ public class Landscape implements CameraSubject {
         boolean loaded = false;
         Vector<Hill> hills = new Vector<>();
         Vector<ThermalTrigger> triggers = new Vector<>();
+        // sampled ground heights, null if the tile is flat
+        HeightField heightField = null;
     }
 
     /**
@@ -52,34 +87,64 @@ public class Landscape implements CameraSubject {
         tiles[t].hills.clear();
         tiles[t].triggers.clear();
 
-        if (t == 0) {
-            loadFlatLand(t);
-            //loadHill_1(t);
-        } else if (t == MAX_TILES - 1) {
+        if (t == MAX_TILES - 1) {
             loadFinalTile(t);
-        } else if (t == 1) {
-            loadFlatLand(t);
-        } else if (t == 2) {
-            loadHill_2(t);
-        } else if (t == 3) {
-            loadStorm(t);
-        } else if (t == 4) {
-            loadHill_1(t);
-        } else if (t == 5) {
-            loadFlatLand(t);
-        } else if (t == 6) {
-            loadMountain_1(t);
-        } else if (t == 7) {
-            loadBlueHole(t);
-        } else if (t == 8) {
-            loadMountain_2(t);
         } else {
-            loadFlatLand(t);
+            switch (layout[t]) {
+                case HILL_1:
+                    loadHill_1(t);
+                    break;
+                case HILL_2:
+                    loadHill_2(t);
+                    break;
+                case STORM:
+                    loadStorm(t);
+                    break;
+                case BLUE_HOLE:
+                    loadBlueHole(t);
+                    break;
+                case MOUNTAIN_1:
+                    loadMountain_1(t);
+                    break;
+                case MOUNTAIN_2:
+                    loadMountain_2(t);
+                    break;
+                default:
+                    loadFlatLand(t);
+            }
         }
 
+        tiles[t].heightField = buildHeightField(t);
         tiles[t].loaded = true;
     }
 
+    /**
+     * sample the tile's hills where they lie within the tile. heights
+     * beyond the tile's edges are looked up in the neighbouring tile
+     */
+    HeightField buildHeightField(int t) {
+        Vector<Hill> hills = tiles[t].hills;
+        if (hills.isEmpty())
+            return null;
+
+        float[] box = hills.elementAt(0).getBounds();
+        for (int i = 1; i < hills.size(); i++) {
+            float[] b = hills.elementAt(i).getBounds();
+            box[0] = Math.min(box[0], b[0]);
+            box[1] = Math.min(box[1], b[1]);
+            box[2] = Math.max(box[2], b[2]);
+            box[3] = Math.max(box[3], b[3]);
+        }
+
+        //first and last tile run on past the ends of the course
+        if (t > 0) box[1] = Math.max(box[1], t * TILE_WIDTH);
+        if (t < MAX_TILES - 1) box[3] = Math.min(box[3], (t + 1) * TILE_WIDTH);
+        if (box[1] >= box[3])
+            return null;
+
+        return new HeightField(box[0], box[1], box[2], box[3], hills);
+    }
+
     void addFrame(int tile, int x) {
         //Vector wire;
 
@@ -95,7 +160,7 @@ public class Landscape implements CameraSubject {
      * add a cross hair (show your working + LED !)
      * - use for tile corners and triggers
      */
-    static void crossHair(float x, float y) {
+    static void crossHair(XCGame app, float x, float y) {
         float HAIR = 1;
 
         Object3d o = new Object3d(app, true, 0);    //layer zero !!
@@ -116,7 +181,7 @@ public class Landscape implements CameraSubject {
     /**
      * hack a long straight pink road - refine later - ha
      */
-    static void road() {
+    void road() {
         float ATOM = 2;
 
         Object3d o = new Object3d(app, true, 0);    //layer zero !!
@@ -136,7 +201,7 @@ public class Landscape implements CameraSubject {
     /**
      * finish line at start of last tile
      */
-    static void goalLine() {
+    void goalLine() {
         float y0 = TILE_WIDTH * MAX_TILES;
 
         Object3d o = new Object3d(app, true, 0);    //layer zero !!
@@ -209,7 +274,7 @@ public class Landscape implements CameraSubject {
      */
     void loadBackTriggers(int tile) {
         int y0 = tile * TILE_WIDTH;
-        int x0 = (int) Tools3d.rnd(2, -2);
+        int x0 = (int) app.random.split(RANDOM_KEY).split(tile).nextDouble(2, -2);
         ThermalTrigger trigger;
         int dx = TILE_WIDTH / 2 + 3;
 
@@ -356,7 +421,8 @@ public class Landscape implements CameraSubject {
     /*
      * load tile user is over
      * and the next tile downwind
-     * unload the upwind tile
+     * unload the tile upwind of whichever loading glider is furthest
+     * back - in a network game every player's glider loads tiles
      */
     public void loadTilesAround(Vector3d p) {
         currentTile = getTile(p);
@@ -364,8 +430,13 @@ public class Landscape implements CameraSubject {
             loadTile(currentTile);
         if (currentTile + 1 < MAX_TILES)
             loadTile(currentTile + 1);
-        if (currentTile > 0)
-            removeTile(currentTile - 1);
+
+        int last = currentTile;
+        for (FlyingDot dot : app.flyingDots.dots)
+            if (dot instanceof Glider && ((Glider) dot).triggerLoading)
+                last = Math.min(last, getTile(dot.p));
+        if (last > 0)
+            removeTile(last - 1);
     }
 
     public boolean reachedGoal(Vector3d p) {
@@ -388,9 +459,41 @@ public class Landscape implements CameraSubject {
 
         tiles[tileNum].hills.clear();
         tiles[tileNum].triggers.clear();
+        tiles[tileNum].heightField = null;
         tiles[tileNum].loaded = false;
     }
 
+    /**
+     * which tiles are loaded, and each loaded trigger's place in its cycle
+     */
+    void save(WorldState out) {
+        out.putInt(currentTile);
+        for (Tile tile : tiles) {
+            out.putBoolean(tile.loaded);
+            if (!tile.loaded) continue;
+
+            out.putInt(tile.triggers.size());
+            for (ThermalTrigger trigger : tile.triggers)
+                trigger.save(out);
+        }
+    }
+
+    void restore(WorldState in) {
+        currentTile = in.getInt();
+        for (int t = 0; t < MAX_TILES; t++) {
+            if (!in.getBoolean()) {
+                removeTile(t);
+                continue;
+            }
+
+            loadTile(t);
+            if (in.getInt() != tiles[t].triggers.size())
+                throw new IllegalArgumentException("world state has a different tile " + t);
+            for (ThermalTrigger trigger : tiles[t].triggers)
+                trigger.restore(in);
+        }
+    }
+
     void removeAll() {
 
         for (int i = 0; i < MAX_TILES; i++) {
@@ -441,30 +544,44 @@ public class Landscape implements CameraSubject {
      * which tile does this point fall in
      */
     int getTile(Vector3d p) {
-        for (int i = 0; i < MAX_TILES; i++) {
-            if ((i + 1) * TILE_WIDTH > p.y) return i;
-        }
-        return MAX_TILES - 1;
+        return getTile(p.y);
+    }
+
+    int getTile(float y) {
+        int i = (int) Math.floor(y / TILE_WIDTH);
+        if (i < 0) return 0;
+        if (i > MAX_TILES - 1) return MAX_TILES - 1;
+        return i;
     }
 
     /**
      * find local hill to point, if any
      */
     public Hill getHillAt(Vector3d p) {
-        int tile = getTile(p);
+        return getHillAt(p.x, p.y);
+    }
+
+    public Hill getHillAt(float x, float y) {
+        int tile = getTile(y);
         if (!tiles[tile].loaded)
             return null;
 
-        for (Hill hill : tiles[tile].hills)
-            if (hill.contains(p.x, p.y))
+        Vector<Hill> hills = tiles[tile].hills;
+        for (int i = 0; i < hills.size(); i++) {
+            Hill hill = hills.elementAt(i);
+            if (hill.contains(x, y))
                 return hill;
+        }
 
         return null;
     }
 
+    /**
+     * ground height, read from the tile's height field
+     */
     public float getHeight(float x, float y) {
-        Hill hill = getHillAt(new Vector3d(x, y, 0));
-        return (hill == null) ? 0 : hill.getHeight(x, y);
+        HeightField field = tiles[getTile(y)].heightField;
+        return (field == null) ? 0 : field.getHeight(x, y);
     }
 
     @Override
@@ -0,0 +1,325 @@
+package org.flightclub;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Vector;
+
+/**
+ * Plays one glider of a network game, in lockstep with the other
+ * players.
+ *
+ * Every player runs the same game, from the same seed, with a glider
+ * for each player. Only the keys pressed go over the wire. Each tick we
+ * send the server our keys, and it sends every player a frame with
+ * everyone's keys for that tick. Each game steps when it has the frame,
+ * with the same fixed delta, so the games all play out the same. Our
+ * keys are for a few ticks ahead (INPUT_DELAY), so the frame is usually
+ * back before it is needed.
+ *
+ * Keys which only move the camera are not sent - they act at once, and
+ * on our screen only. Others, eg. pause or fly again, act for everyone.
+ *
+ * Messages, all little endian, are a type byte then:
+ * join - room, players; start - seed, players, which we are; input -
+ * tick, keys; frame - tick, players, then each player's keys. Keys are
+ * a count (short) then, for each, pressed or released (byte) and the
+ * key code (int).
+ */
+public class Lockstep implements EventManager.Interface, Runnable {
+    static final byte JOIN = 1;
+    static final byte START = 2;
+    static final byte INPUT = 3;
+    static final byte FRAME = 4;
+
+    static final byte PRESSED = 0;
+    static final byte RELEASED = 1;
+
+    /** most players in a game */
+    static final int MAX_PLAYERS = 16;
+
+    /** bytes of a key - pressed or released, and the key code */
+    static final int KEY_BYTES = 5;
+
+    /** longest list of keys - a count then the keys */
+    static final int MAX_KEYS_BYTES = 2 + EventManager.CAPACITY * KEY_BYTES;
+
+    /** longest frame - type, tick, players then each player's keys */
+    static final int MAX_FRAME = 6 + MAX_PLAYERS * MAX_KEYS_BYTES;
+
+    /** ticks between pressing a key and its acting */
+    static final int INPUT_DELAY = 3;
+
+    /** every game steps by this, whatever the wall clock says */
+    static final float DELTA = SimulationRunner.DEFAULT_DELTA;
+
+    final Transport transport;
+    final long seed;
+    final int numPlayers;
+    final int me;
+
+    XCGame app = null;
+    GliderUser[] pilots;
+    // each player's keys, handed to their glider
+    private EventManager[] inputs;
+
+    // frames in, yet to step
+    private final Vector<ByteBuffer> frames = new Vector<>();
+    private int tick = 0;
+
+    // keys pressed here since we last sent
+    private final int[] outTypes = new int[EventManager.CAPACITY];
+    private final int[] outKeys = new int[EventManager.CAPACITY];
+    private int numOut = 0;
+    private final ByteBuffer message = ByteBuffer.allocate(NioTransport.MAX_MESSAGE);
+
+    private volatile Thread ticker = null;
+
+    private Lockstep(Transport transport, long seed, int numPlayers, int me) {
+        this.transport = transport;
+        this.seed = seed;
+        this.numPlayers = numPlayers;
+        this.me = me;
+        message.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * join a room of the server at the other end of transport, and wait
+     * until it is full. the first to join a room says how many players
+     * it is for
+     */
+    public static Lockstep join(Transport transport, int room, int numPlayers) throws IOException {
+        if (numPlayers < 1 || numPlayers > MAX_PLAYERS)
+            throw new IllegalArgumentException("players " + numPlayers);
+
+        ByteBuffer b = ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(JOIN);
+        b.putInt(room);
+        b.putInt(numPlayers);
+        b.flip();
+        transport.send(b);
+
+        ByteBuffer start;
+        while ((start = transport.receive()) == null) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("waiting for players");
+            }
+        }
+
+        if (start.remaining() != 17 || start.get() != START)
+            throw new IOException("expected the game to start");
+        long seed = start.getLong();
+        int players = start.getInt();
+        int me = start.getInt();
+        if (players < 1 || players > MAX_PLAYERS || me < 0 || me >= players)
+            throw new IOException("player " + me + " of " + players);
+        return new Lockstep(transport, seed, players, me);
+    }
+
+    /**
+     * the number of keys in the list at m's position, checking they are
+     * all there. throws IOException if the list is too long or cut short
+     */
+    static int getKeyCount(ByteBuffer m) throws IOException {
+        if (m.remaining() < 2)
+            throw new IOException("keys cut short");
+        int n = m.getShort();
+        if (n < 0 || n > EventManager.CAPACITY || m.remaining() < n * KEY_BYTES)
+            throw new IOException("keys cut short or too many: " + n);
+        return n;
+    }
+
+    /** build the game from this */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /** which player we are, from 0 */
+    public int getPlayer() {
+        return me;
+    }
+
+    /**
+     * play the game - built from our seed and initialised, but not
+     * started, as we step it. the user's glider is player 0, the others
+     * are made here, in the same order by every player
+     */
+    public void attach(XCGame theApp) throws IOException {
+        app = theApp;
+        if (app.landscape == null)
+            throw new IllegalStateException("game not initialised");
+        if (app.getSeed() != seed)
+            throw new IllegalArgumentException("game has seed " + app.getSeed() + ", not " + seed);
+
+        inputs = new EventManager[numPlayers];
+        pilots = new GliderUser[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            inputs[i] = new EventManager();
+            if (i == 0) {
+                pilots[i] = app.gliderUser;
+                app.eventManager.unsubscribe(app.gliderUser);
+                inputs[i].subscribe(app.gliderUser);
+            } else {
+                pilots[i] = new GliderUser(app, new Vector3d(0, 0, 0), inputs[i]);
+                pilots[i].landed();
+            }
+        }
+
+        //keys pressed here come to us, to send
+        app.eventManager.unsubscribe(app);
+        app.eventManager.subscribe(this);
+
+        app.pilot = pilots[me];
+        app.cameraMan.subject1 = pilots[me];
+
+        //nothing pressed before we began
+        for (int t = 0; t < INPUT_DELAY; t++)
+            sendInput(t);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * step the game if everyone's keys for the next tick are in. false
+     * if not, try again shortly
+     */
+    public boolean step() throws IOException {
+        ByteBuffer m;
+        while ((m = transport.receive()) != null) {
+            if (!m.hasRemaining() || m.get() != FRAME)
+                throw new IOException("expected a frame");
+            frames.addElement(m);
+        }
+
+        if (frames.isEmpty())
+            return false;
+
+        ByteBuffer frame = frames.remove(0);
+        if (frame.remaining() < 5 || frame.getInt() != tick || frame.get() != numPlayers)
+            throw new IOException("frame for the wrong tick or players");
+
+        sendInput(tick + INPUT_DELAY);
+        play(frame);
+
+        //reads any keys pressed here, for the next input we send
+        app.clock.step(DELTA);
+        tick++;
+        return true;
+    }
+
+    // hand each player's keys to their glider, and to the game
+    private void play(ByteBuffer frame) throws IOException {
+        for (int i = 0; i < numPlayers; i++) {
+            int n = getKeyCount(frame);
+            for (int k = 0; k < n; k++) {
+                boolean released = frame.get() == RELEASED;
+                int key = frame.getInt();
+                if (XCGame.isCameraKey(key))
+                    throw new IOException("camera key in frame");
+
+                if (released)
+                    app.keyReleased(key);
+                else
+                    app.keyPressed(key);
+                inputs[i].addEvent(released ? KeyEvent.KEY_RELEASED : KeyEvent.KEY_PRESSED, key, tick);
+
+                //flying again launches just the user's glider
+                if (!released && key == KeyEvent.VK_Y)
+                    launchPilots();
+            }
+            inputs[i].processEvents();
+        }
+    }
+
+    void launchPilots() {
+        for (int i = 1; i < numPlayers; i++) {
+            pilots[i].takeOff(new Vector3d(-1 - i * 0.5f, -2 - i * 0.5f, (float) 1.8));
+            //hills and lift wherever any of us is
+            pilots[i].triggerLoading = true;
+        }
+        app.cameraMan.subject1 = pilots[me];
+    }
+
+    private void sendInput(int t) throws IOException {
+        message.clear();
+        message.put(INPUT);
+        message.putInt(t);
+        message.putShort((short) numOut);
+        for (int k = 0; k < numOut; k++) {
+            message.put((byte) outTypes[k]);
+            message.putInt(outKeys[k]);
+        }
+        numOut = 0;
+        message.flip();
+        transport.send(message);
+    }
+
+    @Override
+    public void keyPressed(int key) {
+        if (XCGame.isCameraKey(key))
+            app.keyPressed(key);
+        else
+            queue(PRESSED, key);
+    }
+
+    @Override
+    public void keyReleased(int key) {
+        if (XCGame.isCameraKey(key))
+            app.keyReleased(key);
+        else
+            queue(RELEASED, key);
+    }
+
+    private void queue(int type, int key) {
+        //as for EventManager, drop what we cannot hold
+        if (numOut == outKeys.length)
+            return;
+        outTypes[numOut] = type;
+        outKeys[numOut] = key;
+        numOut++;
+    }
+
+    /**
+     * step at the game's frame rate on a thread of our own, in place of
+     * the game's clock
+     */
+    public void start() {
+        if (ticker == null)
+            ticker = new Thread(this);
+        ticker.start();
+    }
+
+    public void stop() {
+        ticker = null;
+    }
+
+    @Override
+    public void run() {
+        long sleepTime = 1000 / XCGame.FRAME_RATE;
+        long next = System.currentTimeMillis();
+        try {
+            while (ticker != null) {
+                //catch up if we fell behind waiting for a frame
+                if (System.currentTimeMillis() < next || !step()) {
+                    Thread.sleep(1);
+                    continue;
+                }
+                next = Math.max(next + sleepTime, System.currentTimeMillis() - sleepTime);
+            }
+        } catch (IOException e) {
+            System.err.println("lockstep: " + e + ", game over");
+        } catch (InterruptedException e) {
+        }
+        ticker = null;
+    }
+}
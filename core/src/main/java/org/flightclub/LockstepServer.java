@@ -0,0 +1,294 @@
+package org.flightclub;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hosts lockstep games (see Lockstep) - players join a room by number,
+ * and once it is full we send them all a seed and relay their keys.
+ *
+ * We run no games ourselves, only gather each player's keys for a tick
+ * and pass the lot on as a frame, so one thread with a selector can host
+ * a great many rooms. Players may connect over tcp, or from within this
+ * vm (see connect).
+ *
+ * A room closes, and its players are dropped, as soon as any of them
+ * leaves or sends something out of turn, or malformed.
+ */
+public class LockstepServer implements Runnable {
+    private final Selector selector;
+    // null if we take no tcp connections
+    private final ServerSocketChannel server;
+
+    private final Hashtable<Integer, Room> rooms = new Hashtable<>();
+
+    // players within this vm with messages waiting, or gone
+    private final ConcurrentLinkedQueue<Player> ready = new ConcurrentLinkedQueue<>();
+
+    private final RandomStream random = new RandomStream(System.nanoTime());
+    private final ByteBuffer frame = ByteBuffer.allocate(Lockstep.MAX_FRAME);
+
+    private volatile Thread thread = null;
+
+    /**
+     * a server for players in this vm only
+     */
+    public LockstepServer() throws IOException {
+        selector = Selector.open();
+        server = null;
+        frame.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * as above, and listening for tcp connections on the port (0 for any
+     * free port, see getPort)
+     */
+    public LockstepServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        frame.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int getPort() {
+        return (server == null) ? -1 : server.socket().getLocalPort();
+    }
+
+    /**
+     * a connection to us from within this vm
+     */
+    public Transport connect() {
+        LoopbackTransport[] ends = LoopbackTransport.pair();
+        final Player player = new Player(ends[1]);
+        ends[1].listener = new Runnable() {
+            @Override
+            public void run() {
+                ready.add(player);
+                selector.wakeup();
+            }
+        };
+        return ends[0];
+    }
+
+    /** how many rooms are open */
+    public int getNumRooms() {
+        return rooms.size();
+    }
+
+    public void start() {
+        thread = new Thread(this, "lockstep server");
+        thread.start();
+    }
+
+    public void stop() {
+        thread = null;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (thread != null) {
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    Player player = (Player) key.attachment();
+                    try {
+                        if (key.isWritable())
+                            ((NioTransport) player.transport).flush();
+                        if (key.isReadable())
+                            read(player);
+                    } catch (IOException e) {
+                        drop(player);
+                    }
+                }
+
+                Player player;
+                while ((player = ready.poll()) != null) {
+                    try {
+                        read(player);
+                    } catch (IOException e) {
+                        drop(player);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("lockstep server: " + e);
+        } finally {
+            close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+            return;
+
+        NioTransport transport = new NioTransport(channel);
+        Player player = new Player(transport);
+        transport.key = channel.register(selector, SelectionKey.OP_READ, player);
+    }
+
+    private void read(Player player) throws IOException {
+        ByteBuffer m;
+        while (!player.dropped && (m = player.transport.receive()) != null) {
+            if (!m.hasRemaining())
+                throw new IOException("empty message");
+            byte type = m.get();
+            if (type == Lockstep.JOIN && player.room == null && m.remaining() == 8)
+                join(player, m.getInt(), m.getInt());
+            else if (type == Lockstep.INPUT && player.room != null && player.room.started)
+                input(player, m);
+            else
+                throw new IOException("unexpected message " + type);
+        }
+    }
+
+    private void join(Player player, int id, int numPlayers) throws IOException {
+        Room room = rooms.get(id);
+        if (room == null) {
+            if (numPlayers < 1 || numPlayers > Lockstep.MAX_PLAYERS)
+                throw new IOException("players " + numPlayers);
+            room = new Room(id, numPlayers);
+            rooms.put(id, room);
+        }
+        if (room.started || numPlayers != room.players.length)
+            throw new IOException("room " + id + " is full or for " + room.players.length);
+
+        player.room = room;
+        player.index = room.numJoined;
+        room.players[room.numJoined++] = player;
+        if (room.numJoined < room.players.length)
+            return;
+
+        room.started = true;
+        long seed = random.nextLong();
+        for (Player p : room.players) {
+            frame.clear();
+            frame.put(Lockstep.START);
+            frame.putLong(seed);
+            frame.putInt(room.players.length);
+            frame.putInt(p.index);
+            frame.flip();
+            p.transport.send(frame);
+        }
+    }
+
+    private void input(Player player, ByteBuffer m) throws IOException {
+        if (m.remaining() < 4 || m.getInt() != player.nextTick)
+            throw new IOException("input out of turn");
+        //just the keys, so the frame has room for everyone's
+        ByteBuffer keys = m.slice();
+        if (Lockstep.getKeyCount(m) * Lockstep.KEY_BYTES != m.remaining())
+            throw new IOException("input the wrong length");
+        player.nextTick++;
+        player.inputs.addElement(keys);
+
+        //a frame for each tick everyone has sent
+        Room room = player.room;
+        while (true) {
+            for (Player p : room.players)
+                if (p.inputs.isEmpty())
+                    return;
+
+            frame.clear();
+            frame.put(Lockstep.FRAME);
+            frame.putInt(room.tick++);
+            frame.put((byte) room.players.length);
+            for (Player p : room.players)
+                frame.put(p.inputs.remove(0));
+            frame.flip();
+
+            for (Player p : room.players) {
+                frame.rewind();
+                p.transport.send(frame);
+            }
+        }
+    }
+
+    // drop player, and everyone they were playing with
+    private void drop(Player player) {
+        Room room = player.room;
+        if (room == null) {
+            player.close();
+            return;
+        }
+
+        rooms.remove(room.id);
+        for (Player p : room.players)
+            if (p != null) p.close();
+    }
+
+    private void close() {
+        for (Room room : new Vector<>(rooms.values()))
+            for (Player p : room.players)
+                if (p != null) p.close();
+        rooms.clear();
+
+        try {
+            if (server != null) server.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("lockstep server: " + e);
+        }
+    }
+
+    static class Room {
+        final int id;
+        final Player[] players;
+        int numJoined = 0;
+        boolean started = false;
+        // next frame to send
+        int tick = 0;
+
+        Room(int id, int numPlayers) {
+            this.id = id;
+            players = new Player[numPlayers];
+        }
+    }
+
+    static class Player {
+        final Transport transport;
+        Room room = null;
+        int index;
+        boolean dropped = false;
+        int nextTick = 0;
+        // each tick's keys, yet to go out in a frame
+        final Vector<ByteBuffer> inputs = new Vector<>();
+
+        Player(Transport transport) {
+            this.transport = transport;
+        }
+
+        void close() {
+            dropped = true;
+            try {
+                transport.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.flightclub;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Both ends of a connection within one vm - eg. players and the server
+ * of a lockstep game in the same process, or a test. Each message sent
+ * is copied onto a queue the other end takes from, on any thread.
+ */
+public class LoopbackTransport implements Transport {
+    private final ConcurrentLinkedQueue<ByteBuffer> in = new ConcurrentLinkedQueue<>();
+    private LoopbackTransport other;
+    private volatile boolean closed = false;
+
+    // run when a message arrives or the other end closes, eg. to wake a
+    // server's selector
+    volatile Runnable listener = null;
+
+    private LoopbackTransport() {
+    }
+
+    /**
+     * two ends, each sending to the other
+     */
+    public static LoopbackTransport[] pair() {
+        LoopbackTransport a = new LoopbackTransport();
+        LoopbackTransport b = new LoopbackTransport();
+        a.other = b;
+        b.other = a;
+        return new LoopbackTransport[]{a, b};
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        if (closed || other.closed)
+            throw new IOException("connection closed");
+
+        ByteBuffer copy = ByteBuffer.allocate(message.remaining());
+        copy.put(message);
+        copy.flip();
+        copy.order(ByteOrder.LITTLE_ENDIAN);
+        other.in.add(copy);
+        other.notifyListener();
+    }
+
+    @Override
+    public ByteBuffer receive() throws IOException {
+        ByteBuffer message = in.poll();
+        if (message == null && (closed || other.closed))
+            throw new EOFException("connection closed");
+        return message;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        other.notifyListener();
+    }
+
+    private void notifyListener() {
+        Runnable l = listener;
+        if (l != null) l.run();
+    }
+}
@@ -10,11 +10,15 @@ package org.flightclub;
 
 
 import org.flightclub.compat.AwtGraphics;
+import org.flightclub.compat.PixelGraphics;
+import org.flightclub.compat.TiledGraphics;
 
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -34,9 +38,63 @@ public class ModelCanvas extends Canvas implements Clock.Observer {
     private Graphics graphicsBuffer;
     private MouseTracker mouseTracker = new MouseTracker();
 
+    // true if another thread draws us, see setActiveRendering
+    private boolean activeRendering = false;
+
+    // set if we rasterise the frame ourselves, see setSoftwareRendering
+    private BufferedImage softImage = null;
+    private PixelGraphics softGraphics = null;
+    private TiledGraphics tiledGraphics = null;
+
     public ModelCanvas(XCGame theApp) {
         app = theApp;
-        app.clock.addObserver(this);
+        app.clock.addObserver(this, Clock.Phase.RENDER);
+    }
+
+    /**
+     * stop repainting ourselves on each tick, and ignore paint requests
+     * from the os, as a render thread is drawing straight to the screen
+     */
+    public void setActiveRendering(boolean active) {
+        activeRendering = active;
+        setIgnoreRepaint(active);
+    }
+
+    /**
+     * draw frames with our own rasteriser into the pixels of an image,
+     * which is then blitted to the screen in one go
+     */
+    public void setSoftwareRendering(boolean software) {
+        setSoftwareRendering(software, false);
+    }
+
+    /**
+     * as above, and if tiled rasterise screen tiles in parallel (see
+     * TiledGraphics)
+     */
+    public void setSoftwareRendering(boolean software, boolean tiled) {
+        softImage = null;
+        softGraphics = null;
+        tiledGraphics = null;
+        if (!software) return;
+
+        softImage = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) softImage.getRaster().getDataBuffer()).getData();
+        if (tiled)
+            tiledGraphics = new TiledGraphics(pixels, getWidth(), getHeight());
+        else
+            softGraphics = new PixelGraphics(pixels, getWidth(), getHeight());
+    }
+
+    /**
+     * with software rendering, keep a depth buffer rather than sort
+     * objects back to front
+     */
+    public void setDepthTest(boolean on) {
+        if (softGraphics != null)
+            softGraphics.setDepthTest(on);
+        if (tiledGraphics != null)
+            tiledGraphics.setDepthTest(on);
     }
 
     void init() {
@@ -101,12 +159,25 @@ public class ModelCanvas extends Canvas implements Clock.Observer {
             app.cameraMan.translateZ(-dz);
         }
 
-        repaint();
+        if (!activeRendering)
+            repaint();
     }
 
     @Override
     public void paint(Graphics g) {
-        if (imgBuffer == null) return;
+        if (imgBuffer == null || activeRendering) return;
+
+        if (softGraphics != null) {
+            updatePixels(softGraphics);
+            g.drawImage(softImage, 0, 0, this);
+            return;
+        }
+
+        if (tiledGraphics != null) {
+            updatePixels(tiledGraphics);
+            g.drawImage(softImage, 0, 0, this);
+            return;
+        }
 
         updateImgBuffer(graphicsBuffer);
         g.drawImage(imgBuffer, 0, 0, this);
@@ -123,5 +194,19 @@ public class ModelCanvas extends Canvas implements Clock.Observer {
 
         app.draw(new AwtGraphics(g), getWidth(), getHeight());
     }
-}
 
+    public void updatePixels(PixelGraphics g) {
+        g.setColor(org.flightclub.compat.Color.WHITE);
+        g.clear();
+
+        app.draw(g, g.getWidth(), g.getHeight());
+    }
+
+    public void updatePixels(TiledGraphics g) {
+        g.setColor(org.flightclub.compat.Color.WHITE);
+        g.clear();
+
+        app.draw(g, g.getWidth(), g.getHeight());
+        g.render();
+    }
+}
@@ -39,6 +39,13 @@ public class MovementManager {
     static final int STRAIGHT = 0;
     static final int RIGHT = 1;
 
+    // scratch vectors - reused each tick so steering makes no garbage
+    private final Vector3d target = new Vector3d();
+    private final Vector3d center = new Vector3d();
+    private final Vector3d u = new Vector3d();
+    private final Vector3d w = new Vector3d();
+    private final Vector3d c = new Vector3d();
+
     public MovementManager(XCGame theApp, FlyingDot theFlyingDot) {
         app = theApp;
         flyingDot = theFlyingDot;
@@ -92,6 +99,40 @@ public class MovementManager {
         return 0;
     }
 
+    void save(WorldState out) {
+        out.putVectorOrNull(targetPoint);
+        out.putVectorOrNull(circlePoint);
+        out.putCloud(cloud);
+
+        //circuits are made afresh by their hill (see Hill.getCircuit), so
+        //one round a hill on a tile since unloaded is dropped
+        out.putHill(circuit == null ? null : circuit.hill);
+        if (circuit != null) out.putInt(circuit.next);
+        out.putVectorOrNull(circuitPoint);
+
+        out.putInt(nextMoveUser);
+        out.putBoolean(joinedCircuit);
+        out.putInt(wiggleCount);
+    }
+
+    void restore(WorldState in) {
+        targetPoint = in.getVectorOrNull(target);
+        circlePoint = in.getVectorOrNull(center);
+        cloud = in.getCloud();
+
+        Hill hill = in.getHill();
+        circuit = null;
+        if (hill != null) {
+            circuit = hill.getCircuit();
+            circuit.next = in.getInt();
+        }
+        circuitPoint = in.getVectorOrNull(new Vector3d());
+
+        nextMoveUser = in.getInt();
+        joinedCircuit = in.getBoolean();
+        wiggleCount = in.getInt();
+    }
+
     void setCircuit(Circuit inCircuit) {
         clearControllers();
         circuit = inCircuit;
@@ -100,14 +141,18 @@ public class MovementManager {
     }
 
     void setTargetPoint(Vector3d t) {
+        setTargetPoint(t.x, t.y, t.z);
+    }
+
+    void setTargetPoint(float x, float y, float z) {
         clearControllers();
-        targetPoint = new Vector3d(t.x, t.y, t.z);
+        targetPoint = target.set(x, y, z);
     }
 
     void setCirclePoint(Vector3d c) {
         //take a copy of c (otherwise it may move eg. flyingDot.p)
         clearControllers();
-        circlePoint = new Vector3d(c.x, c.y, c.z);
+        circlePoint = center.set(c);
     }
 
     void setCloud(Cloud c) {
@@ -120,7 +165,7 @@ public class MovementManager {
         // clear all controllers
         clearControllers();
         nextMoveUser = dir;
-        app.cameraMan.cutSetup(flyingDot, flyingDot.isUser);
+        flyingDot.cutTo(flyingDot);
     }
 
     void clearControllers() {
@@ -166,8 +211,8 @@ public class MovementManager {
          * to turn left or right. return true if
          * we are 'at' the point.
          */
-        Vector3d u = new Vector3d(x - flyingDot.p.x, y - flyingDot.p.y, 0);
-        Vector3d v = new Vector3d(flyingDot.v.x, flyingDot.v.y, 0);
+        u.set(x - flyingDot.p.x, y - flyingDot.p.y, 0);
+        w.set(flyingDot.v.x, flyingDot.v.y, 0);
         float d = u.length();
 
         if (d < flyingDot.my_turn_radius / 4) {
@@ -178,12 +223,12 @@ public class MovementManager {
         }
 
         // are we flying ~ staight towards target ?
-        float dot = u.dot(v) / (flyingDot.ds * d);
+        float dot = u.dot(w) / (flyingDot.ds * d);
         if (dot > 0.99) {
             return 0;
         }
 
-        Vector3d c = v.crossed(u);
+        w.crossed(u, c);
         float sin = c.length() / (flyingDot.ds * d);
         float sin1 = flyingDot.ds / flyingDot.my_turn_radius;
 
@@ -227,13 +272,13 @@ public class MovementManager {
         /*
          * use cross product of v and r
          */
-        Vector3d r = new Vector3d(flyingDot.p.x - x, flyingDot.p.y - y, 0);
+        Vector3d r = u.set(flyingDot.p.x - x, flyingDot.p.y - y, 0);
         float d = r.length();
 
         //are we close ?
         if (d > flyingDot.my_turn_radius * 3) return headTowards(x, y);
 
-        Vector3d cross = r.crossed(flyingDot.v);
+        Vector3d cross = r.crossed(flyingDot.v, c);
 
         float dperp = cross.length() / flyingDot.ds;
         float dot = r.dot(flyingDot.v);
@@ -285,7 +330,7 @@ public class MovementManager {
 
         if (h != null) {
             setCircuit(h.getCircuit());
-            app.cameraMan.cutSetup(h, flyingDot.isUser);
+            flyingDot.cutTo(h);
             return;
         }
 
@@ -294,7 +339,7 @@ public class MovementManager {
 
         if (c != null) {
             setCloud(c);
-            app.cameraMan.cutSetup(cloud, flyingDot.isUser);
+            flyingDot.cutTo(cloud);
             return;
         }
 
@@ -307,7 +352,7 @@ public class MovementManager {
         if (cloud != null) {
             //System.out.println("set cloud to null");
             cloud = null;
-            app.cameraMan.cutSetup(flyingDot, flyingDot.isUser);
+            flyingDot.cutTo(flyingDot);
             return;
         }
 
@@ -315,14 +360,14 @@ public class MovementManager {
             //System.out.println("set circuit to null");
             circuit = null;
             circuitPoint = null;
-            app.cameraMan.cutSetup(flyingDot, flyingDot.isUser);
+            flyingDot.cutTo(flyingDot);
             return;
         }
 
         if (circlePoint != null) {
             //System.out.println("set circle point to null");
             circlePoint = null;
-            app.cameraMan.cutSetup(flyingDot, flyingDot.isUser);
+            flyingDot.cutTo(flyingDot);
             return;
         }
 
@@ -330,7 +375,7 @@ public class MovementManager {
         if (c != null) {
             //System.out.println("set cloud !");
             setCloud(c);
-            app.cameraMan.cutSetup(cloud, flyingDot.isUser);
+            flyingDot.cutTo(cloud);
             return;
         }
 
@@ -338,7 +383,7 @@ public class MovementManager {
         if (h != null) {
             //System.out.println("set hill !");
             setCircuit(h.getCircuit());
-            app.cameraMan.cutSetup(h, flyingDot.isUser);
+            flyingDot.cutTo(h);
             return;
         }
 
@@ -0,0 +1,130 @@
+package org.flightclub;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Messages over a non-blocking tcp socket, each sent as its length then
+ * its bytes.
+ *
+ * Whatever the socket will not take at once waits in a buffer and goes
+ * out on the next send or receive - or, on a server, when the selector
+ * says the socket is ready for it (see flush).
+ */
+public class NioTransport implements Transport {
+    /** longest message we send or accept */
+    static final int MAX_MESSAGE = 1 << 16;
+
+    final SocketChannel channel;
+    private ByteBuffer in = ByteBuffer.allocate(4096);
+    private ByteBuffer out = ByteBuffer.allocate(4096);
+
+    // set by a server, so we can ask to be told when we may write
+    SelectionKey key = null;
+
+    NioTransport(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        out.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * connect to a server, eg. a LockstepServer
+     */
+    public static NioTransport connect(InetSocketAddress address) throws IOException {
+        return new NioTransport(SocketChannel.open(address));
+    }
+
+    @Override
+    public void send(ByteBuffer message) throws IOException {
+        int n = message.remaining();
+        if (n > MAX_MESSAGE)
+            throw new IOException("message of " + n + " bytes, the most is " + MAX_MESSAGE);
+
+        if (out.remaining() < 4 + n) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + 4 + n));
+            bigger.order(ByteOrder.LITTLE_ENDIAN);
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+        out.putInt(n);
+        out.put(message);
+        flush();
+    }
+
+    /**
+     * write as much of what is waiting as the socket will take. true
+     * if it all went
+     */
+    boolean flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+
+        boolean done = out.position() == 0;
+        if (key != null)
+            key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        return done;
+    }
+
+    @Override
+    public ByteBuffer receive() throws IOException {
+        if (out.position() > 0)
+            flush();
+
+        ByteBuffer message = next();
+        if (message != null)
+            return message;
+
+        if (channel.read(in) < 0)
+            throw new EOFException("connection closed");
+        return next();
+    }
+
+    // the first whole message read, if any
+    private ByteBuffer next() throws IOException {
+        if (in.position() < 4)
+            return null;
+
+        int n = in.getInt(0);
+        if (n < 0 || n > MAX_MESSAGE)
+            throw new IOException("message of " + n + " bytes, the most is " + MAX_MESSAGE);
+
+        if (in.position() < 4 + n) {
+            //make room for the rest
+            if (in.capacity() < 4 + n) {
+                ByteBuffer bigger = ByteBuffer.allocate(4 + n);
+                bigger.order(ByteOrder.LITTLE_ENDIAN);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            return null;
+        }
+
+        ByteBuffer message = ByteBuffer.allocate(n);
+        message.order(ByteOrder.LITTLE_ENDIAN);
+        in.flip();
+        in.position(4);
+        int limit = in.limit();
+        in.limit(4 + n);
+        message.put(in);
+        in.limit(limit);
+        in.compact();
+        message.flip();
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -11,23 +11,54 @@ package org.flightclub;
 import org.flightclub.compat.Color;
 import org.flightclub.compat.Graphics;
 
+import java.util.Arrays;
 import java.util.Vector;
 
 public class Object3d {
     protected XCGame app = null;
 
-    final Vector<Vector3d> points = new Vector<>();
-    final Vector<Vector3d> points_ = new Vector<>();
+    /*
+     * flattened lists of points {x0, y0, z0, x1, y1, z1, ...}. ps
+     * holds the model co-ords and ps_ the co-ords after filming.
+     */
+    float[] ps = new float[INITIAL_POINTS * 3];
+    float[] ps_ = new float[INITIAL_POINTS * 3];
+    int numPoints = 0;
+
+    /*
+     * points may be stored rotated, as a ring (see Tail) - point i
+     * lives in slot (head + i) % numPoints of the lists above
+     */
+    int head = 0;
+
+    /*
+     * bounding sphere of the points, for culling. set boundsValid
+     * false whenever points are moved.
+     */
+    final Vector3d center = new Vector3d();
+    float radius = 0;
+    boolean boundsValid = false;
+
+    // camera x of the center, as of the last film - larger is nearer
+    float depth = 0;
+
+    // how far the owner moved us last tick - when drawing between
+    // ticks we are filmed back along this, see CameraMan.lag
+    final Vector3d dp = new Vector3d();
+
     final Vector<PolyLine> wires = new Vector<>();
 
     // list of flags - is point within field of view
-    final Vector<Boolean> inFOVs = new Vector<>();
+    boolean[] inFOVs = new boolean[INITIAL_POINTS];
 
     boolean inFOV = false;
 
     // default layer 1
     int layer;
 
+    // room for points before the arrays grow
+    static final int INITIAL_POINTS = 8;
+
     Object3d(XCGame theApp) {
         this(theApp, true);
     }
@@ -57,37 +88,108 @@ public class Object3d {
         for (int i = 0; i < wires.size(); i++) {
             PolyLine wire = wires.elementAt(i);
 
-            if (!wire.isBackFace(app.cameraMan.getEye()))
+            if (!wire.isBackFace(app.cameraMan.getViewEye()))
                 wire.draw(g);
         }
     }
 
     /** use camera to get from 3d to 2d */
     void film(CameraMan camera) {
-        Vector3d v;
-        Vector3d v_;
-
         inFOV = false; //set true if any points are in FOV
 
-        for (int i = 0; i < points.size(); i++) {
-            v = points.elementAt(i);
-            v_ = points_.elementAt(i);
+        //skip the lot if we are out of shot
+        if (numPoints == 0)
+            return;
+        if (!boundsValid)
+            setBounds();
+
+        //where we are drawn between ticks
+        float dx = camera.lag * dp.x;
+        float dy = camera.lag * dp.y;
+        float dz = camera.lag * dp.z;
+
+        depth = camera.depthOf(center.x - dx, center.y - dy, center.z - dz);
+        if (!camera.canSee(center.x - dx, center.y - dy, center.z - dz, radius))
+            return;
+
+        float[][] m = camera.getMatrix();
+        Vector3d focus = camera.getViewFocus();
+        float fx = focus.x + dx;
+        float fy = focus.y + dy;
+        float fz = focus.z + dz;
+        float d = camera.getDistance();
+
+        for (int i = 0; i < numPoints; i++) {
+            int k = i * 3;
 
             //translate, rotate and project (only if visible)
-            v_.set(v).subtract(camera.getFocus());
-            Tools3d.applyTo(camera.getMatrix(), v_, v_);
+            Tools3d.applyTo(m, ps[k] - fx, ps[k + 1] - fy, ps[k + 2] - fz, ps_, k);
 
-            boolean rc = Tools3d.projectYZ(v_, v_, camera.getDistance());
+            boolean rc = Tools3d.projectYZ(ps_, k, d);
             inFOV = inFOV || rc;
-            inFOVs.setElementAt(rc, i);
-            camera.scaleToScreen(v_);
+            inFOVs[i] = rc;
+            camera.scaleToScreen(ps_, k);
         }
 
     }
 
+    /**
+     * center the bounding sphere on the middle of the points' box
+     * and stretch it to reach the furthest point
+     */
+    void setBounds() {
+        float minX = Tools3d.INFINITY, minY = Tools3d.INFINITY, minZ = Tools3d.INFINITY;
+        float maxX = -Tools3d.INFINITY, maxY = -Tools3d.INFINITY, maxZ = -Tools3d.INFINITY;
+
+        for (int k = 0; k < numPoints * 3; k += 3) {
+            minX = Math.min(minX, ps[k]);
+            minY = Math.min(minY, ps[k + 1]);
+            minZ = Math.min(minZ, ps[k + 2]);
+            maxX = Math.max(maxX, ps[k]);
+            maxY = Math.max(maxY, ps[k + 1]);
+            maxZ = Math.max(maxZ, ps[k + 2]);
+        }
+        center.set((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+
+        float rr = 0;
+        for (int k = 0; k < numPoints * 3; k += 3) {
+            float dx = ps[k] - center.x;
+            float dy = ps[k + 1] - center.y;
+            float dz = ps[k + 2] - center.z;
+            rr = Math.max(rr, dx * dx + dy * dy + dz * dz);
+        }
+        radius = (float) Math.sqrt(rr);
+        boundsValid = true;
+    }
+
     public void scaleBy(float s) {
-        for (Vector3d v : points)
-            v.scaleBy(s);
+        for (int k = 0; k < numPoints * 3; k++)
+            ps[k] *= s;
+        boundsValid = false;
+    }
+
+    /** where point i is kept */
+    final int slot(int i) {
+        int s = head + i;
+        return (s < numPoints) ? s : s - numPoints;
+    }
+
+    /** copy point i into v */
+    Vector3d getPoint(int i, Vector3d v) {
+        int k = slot(i) * 3;
+        return v.set(ps[k], ps[k + 1], ps[k + 2]);
+    }
+
+    void setPoint(int i, Vector3d v) {
+        setPoint(i, v.x, v.y, v.z);
+    }
+
+    void setPoint(int i, float x, float y, float z) {
+        int k = slot(i) * 3;
+        ps[k] = x;
+        ps[k + 1] = y;
+        ps[k + 2] = z;
+        boundsValid = false;
     }
 
     public void setColor(Color c) {
@@ -95,28 +197,30 @@ public class Object3d {
             wire.c = c;
     }
 
+    /**
+     * copy p into our list of points, unless we already have
+     * a point with the same co-ords. return its index.
+     */
     protected int addPoint(Vector3d p) {
-        Vector3d q;
-        int index = 0;
-        boolean found = false;
-
-        for (int i = 0; i < points.size(); i++) {
-            q = points.elementAt(i);
-            if ((q.x == p.x) && (q.y == p.y) && (q.z == p.z)) {
-                index = i;
-                found = true;
-                break;
-            }
+        for (int i = 0; i < numPoints; i++) {
+            int k = i * 3;
+            if (ps[k] == p.x && ps[k + 1] == p.y && ps[k + 2] == p.z)
+                return i;
         }
 
-        if (found)
-            return index;
-        else {
-            points.addElement(p);
-            points_.addElement(new Vector3d());
-            inFOVs.addElement(false);
-            return points.size() - 1;
+        if (numPoints == inFOVs.length) {
+            int capacity = numPoints * 2;
+            ps = Arrays.copyOf(ps, capacity * 3);
+            ps_ = Arrays.copyOf(ps_, capacity * 3);
+            inFOVs = Arrays.copyOf(inFOVs, capacity);
         }
+
+        int k = numPoints * 3;
+        ps[k] = p.x;
+        ps[k + 1] = p.y;
+        ps[k + 2] = p.z;
+        boundsValid = false;
+        return numPoints++;
     }
 
     public int addWire(Vector<Vector3d> wirePoints, Color c) {
@@ -197,10 +301,8 @@ public class Object3d {
         for (PolyLine fromWire : from.wires) {
 
             Vector<Vector3d> toWire = new Vector<>();
-            for (int k : fromWire.points) {
-                Vector3d v = from.points.elementAt(k);
-                toWire.addElement(new Vector3d(v));
-            }
+            for (int k : fromWire.points)
+                toWire.addElement(from.getPoint(k, new Vector3d()));
 
             boolean hasNorm = (fromWire.normal != null);
             to.addWire(toWire, fromWire.c, fromWire.isSolid, hasNorm);
@@ -9,6 +9,7 @@
 package org.flightclub;
 
 import org.flightclub.compat.Color;
+import org.flightclub.compat.DepthGraphics;
 import org.flightclub.compat.Graphics;
 
 import java.util.Vector;
@@ -27,6 +28,12 @@ import java.util.Vector;
 public class Object3dWithShadow extends Object3d {
     static final int MAX_SHADOWS = 2;
     static final int SHADOW_COLOR = 180;
+
+    /**
+     * with a depth buffer, shadows are drawn this fraction nearer than
+     * they are so they don't fight the hill they lie on
+     */
+    static final float SHADOW_DEPTH_BIAS = (float) 0.02;
     final int[] shadowCasters = new int[MAX_SHADOWS];
     final Surface[] shadows = new Surface[MAX_SHADOWS];
     int numShadows = 0;
@@ -85,35 +92,47 @@ public class Object3dWithShadow extends Object3d {
 	  call this method each time they move the 
 	  object
 	*/
+        boundsValid = false;
         for (int i = 0; i < MAX_SHADOWS; i++) {
             if (shadowCasters[i] == -1) return;
             Surface surface = (Surface) wires.elementAt(shadowCasters[i]);
 
             for (int j = surface.numPoints - 1; j >= 0; j--) {
-                Vector3d p = points.elementAt(surface.points[j]);
-                Vector3d q = points.elementAt(shadows[i].points[surface.numPoints - 1 - j]);//??
-                q.set(p);
-                //float doff = p.z/2;
-                //q.x -= doff;
-                //q.y += 0;;
-                if (app.landscape != null) q.z = app.landscape.getHeight(q.x, q.y);
-                else q.z = 0;
+                int k = surface.points[j] * 3;
+                int kq = shadows[i].points[surface.numPoints - 1 - j] * 3;//??
+
+                //copy caster point down onto the ground
+                float x = ps[k];
+                float y = ps[k + 1];
+                ps[kq] = x;
+                ps[kq + 1] = y;
+                if (app.landscape != null) ps[kq + 2] = app.landscape.getHeight(x, y);
+                else ps[kq + 2] = 0;
             }
         }
     }
 
     public void drawShadow(Graphics g) {
+        DepthGraphics dg = PolyLine.depthTested(g);
+        if (dg != null)
+            dg.setDepthBias(SHADOW_DEPTH_BIAS);
+
         for (int i = 0; i < MAX_SHADOWS; i++) {
             if (shadowCasters[i] == -1)
-                return;
+                break;
 
-            if (!shadows[i].isBackFace(app.cameraMan.getEye()))
+            if (!shadows[i].isBackFace(app.cameraMan.getViewEye()))
                 shadows[i].draw(g);
         }
+
+        if (dg != null)
+            dg.setDepthBias(0);
     }
 
     @Override
     public void draw(Graphics g) {
+        if (!inFOV) return;
+
         // tmp - not doing z order yet
         drawShadow(g);
         super.draw(g);
@@ -129,9 +148,7 @@ public class Object3dWithShadow extends Object3d {
                 Vector<Vector3d> toWire = new Vector<>();
                 for (int j = 0; j < fromWire.points.length; j++) {
                     int k = fromWire.points[j];
-                    Vector3d v = from.points.elementAt(k);
-                    Vector3d q = new Vector3d(v.x, v.y, v.z);
-                    toWire.addElement(q);
+                    toWire.addElement(from.getPoint(k, new Vector3d()));
                 }
                 boolean hasNorm = (fromWire.normal != null);
                 to.addWireWithShadow(toWire, fromWire.c, fromWire.isSolid, hasNorm);
@@ -14,26 +14,53 @@ import java.util.Vector;
 
 public class ObjectLayer extends Vector<Object3d> {
 
+    /*
+     * objects barely change order from one frame to the next, so
+     * insertion sort is close to linear. give up on it and do a full
+     * sort if things have been shuffled (eg. a camera cut).
+     */
+    static final int MAX_MOVES_PER_OBJECT = 4;
+
+    // depths of the objects, cached as we sort
+    private float[] keys = new float[16];
+
     /** sort each layer so furthest away obj is first in list */
-    public void sort() {
-        Collections.sort(this, COMPARATOR);
+    public synchronized void sort() {
+        int n = elementCount;
+        if (keys.length < n)
+            keys = new float[n * 2];
+
+        for (int i = 0; i < n; i++)
+            keys[i] = ((Object3d) elementData[i]).depth;
+
+        int moves = 0;
+        int maxMoves = n * MAX_MOVES_PER_OBJECT;
+        for (int i = 1; i < n; i++) {
+            float key = keys[i];
+            Object o = elementData[i];
+
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                elementData[j + 1] = elementData[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            elementData[j + 1] = o;
+
+            moves += i - 1 - j;
+            if (moves > maxMoves) {
+                Collections.sort(this, COMPARATOR);
+                return;
+            }
+        }
+        modCount++;
     }
 
     public static final Comparator<Object3d> COMPARATOR = new Comparator<Object3d>() {
         @Override
         public int compare(Object3d o1, Object3d o2) {
-            if (o1.points_.size() == 0 || o2.points_.size() == 0)
-                return 0;
-
-            Vector3d p1 = o1.points_.get(0);
-            Vector3d p2 = o2.points_.get(0);
-
-            if (p1.x > p2.x)
-                return 1;
-            else if (p1.x < p2.x)
-                return -1;
-            else
-                return 0;
+            return Float.compare(o1.depth, o2.depth);
         }
     };
 }
@@ -9,6 +9,7 @@
 package org.flightclub;
 
 import org.flightclub.compat.Color;
+import org.flightclub.compat.DepthGraphics;
 import org.flightclub.compat.Graphics;
 
 public class PolyLine {
@@ -46,24 +47,36 @@ public class PolyLine {
 
         setNormal();    //now ???
 
-        Vector3d p = object3d.points.elementAt(points[0]);
-        Vector3d ray = p.minus(eye);
+        //ray from eye to first point
+        float[] ps = object3d.ps;
+        int k = object3d.slot(points[0]) * 3;
 
-        return normal.dot(ray) >= 0;
+        return normal.x * (ps[k] - eye.x)
+                + normal.y * (ps[k + 1] - eye.y)
+                + normal.z * (ps[k + 2] - eye.z) >= 0;
     }
 
     void setNormal() {
         if (numPoints < 3)
             return;
 
-        Vector3d[] ps = new Vector3d[3];
-        for (int i = 0; i < 3; i++)
-            ps[i] = object3d.points.elementAt(points[i]);
+        float[] ps = object3d.ps;
+        int k0 = object3d.slot(points[0]) * 3;
+        int k1 = object3d.slot(points[1]) * 3;
+        int k2 = object3d.slot(points[2]) * 3;
 
-        Vector3d e1 = ps[0].minus(ps[1]);
-        Vector3d e2 = ps[2].minus(ps[1]);
+        //two edges, e1 = p0 - p1 and e2 = p2 - p1
+        float e1x = ps[k0] - ps[k1];
+        float e1y = ps[k0 + 1] - ps[k1 + 1];
+        float e1z = ps[k0 + 2] - ps[k1 + 2];
+        float e2x = ps[k2] - ps[k1];
+        float e2y = ps[k2 + 1] - ps[k1 + 1];
+        float e2z = ps[k2 + 2] - ps[k1 + 2];
 
-        normal = new Vector3d(e1).cross(e2).makeUnit();
+        if (normal == null) normal = new Vector3d();
+        normal.set(e1y * e2z - e1z * e2y,
+                   -e1x * e2z + e1z * e2x,
+                   e1x * e2y - e1y * e2x).makeUnit();
 
         calcLight();
     }
@@ -78,34 +91,49 @@ public class PolyLine {
         g *= light;
         b *= light;
 
-        c_ = new Color(r, g, b);
+        c_ = Color.quantised(r, g, b);
     }
 
     public void draw(Graphics g) {
-        Vector3d a;
-        Vector3d b;
-
         if (numPoints <= 1) return;
         g.setColor(this.getColor());
 
-        for (int i = 0; i < numPoints - 1; i++) {
-            a = object3d.points_.elementAt(points[i]);
-            b = object3d.points_.elementAt(points[i + 1]);
-
-            Boolean inFOV1 = object3d.inFOVs.elementAt(points[i]);
-            Boolean inFOV2 = object3d.inFOVs.elementAt(points[i + 1]);
+        float[] ps_ = object3d.ps_;
+        boolean[] inFOVs = object3d.inFOVs;
+        DepthGraphics dg = depthTested(g);
 
-            //System.out.println(inFOV1.booleanValue() && inFOV2.booleanValue());
-
-            if (inFOV1 && inFOV2) {
-                g.drawLine((int) a.y, (int) a.z, (int) b.y, (int) b.z);
+        for (int i = 0; i < numPoints - 1; i++) {
+            int a = object3d.slot(points[i]);
+            int b = object3d.slot(points[i + 1]);
+
+            if (inFOVs[a] && inFOVs[b]) {
+                if (dg != null)
+                    dg.drawLine((int) ps_[a * 3 + 1], (int) ps_[a * 3 + 2], depthW(a), (int) ps_[b * 3 + 1], (int) ps_[b * 3 + 2], depthW(b));
+                else
+                    g.drawLine((int) ps_[a * 3 + 1], (int) ps_[a * 3 + 2], (int) ps_[b * 3 + 1], (int) ps_[b * 3 + 2]);
             }
         }
     }
 
+    /**
+     * g if it wants depths with what we draw, else null
+     */
+    static DepthGraphics depthTested(Graphics g) {
+        if (g instanceof DepthGraphics && ((DepthGraphics) g).isDepthTested())
+            return (DepthGraphics) g;
+        return null;
+    }
+
+    /**
+     * one over the distance of a filmed point in front of the eye
+     */
+    float depthW(int slot) {
+        return 1 / (object3d.app.cameraMan.getDistance() - object3d.ps_[slot * 3]);
+    }
+
     Color getColor() {
-        //fogging
-        Vector3d p = object3d.points_.elementAt(points[0]);
-        return object3d.app.cameraMan.foggyColor(p.x, c_);
+        //fogging - x of first point is ~ distance from camera
+        float x = object3d.ps_[object3d.slot(points[0]) * 3];
+        return object3d.app.cameraMan.foggyColor(x, c_);
     }
 }
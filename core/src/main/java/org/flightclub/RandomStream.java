@@ -0,0 +1,75 @@
+package org.flightclub;
+
+/**
+ * A seeded stream of random numbers (SplitMix64).
+ *
+ * Each game has a root stream built from its seed, and hands out
+ * streams of their own to the things that need random numbers, so a
+ * game run with the same seed plays out the same, bit for bit. split()
+ * takes the next stream in turn, split(key) names one - the same key
+ * always gives the same stream, whatever else has been drawn - so eg.
+ * a thermal trigger can be rebuilt when its tile is reloaded and make
+ * the same clouds.
+ *
+ * Not thread safe, give each thread its own stream.
+ */
+public class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private long state;
+
+    public RandomStream(long seed) {
+        this.seed = seed;
+        state = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** where we are in the stream, to carry on from later (see setState) */
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /** 0 (inclusive) to 1 (exclusive) */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /** lower (inclusive) to upper (exclusive) */
+    public double nextDouble(double lower, double upper) {
+        return nextDouble() * (upper - lower) + lower;
+    }
+
+    /**
+     * the next stream in turn
+     */
+    public RandomStream split() {
+        return new RandomStream(nextLong());
+    }
+
+    /**
+     * the stream named key, leaving this one where it is
+     */
+    public RandomStream split(long key) {
+        return new RandomStream(mix(seed ^ mix(key + GOLDEN_GAMMA)));
+    }
+
+    // stafford's variant 13 of the murmur3 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
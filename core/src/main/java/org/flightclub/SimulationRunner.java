@@ -0,0 +1,95 @@
+package org.flightclub;
+
+/**
+ * Steps a game without the clock thread, a canvas or an interface.
+ *
+ * Each step ticks every clock observer (the game, flying dots, clouds
+ * and thermal triggers) with the same fixed delta, as fast as the cpu
+ * allows. Use this for batch runs, eg tuning the gaggle, rather than
+ * for play.
+ */
+public class SimulationRunner {
+    /** model the clock ticking at the game's frame rate */
+    public static final float DEFAULT_DELTA = 1.0f / XCGame.FRAME_RATE;
+
+    final XCGame app;
+    final float delta;
+    private long ticks = 0;
+
+    public SimulationRunner() {
+        this(new XCGame());
+    }
+
+    public SimulationRunner(XCGame theApp) {
+        this(theApp, DEFAULT_DELTA);
+    }
+
+    /**
+     * the game must not have been started or initialised - we
+     * initialise it here with no interface attached
+     */
+    public SimulationRunner(XCGame theApp, float delta) {
+        app = theApp;
+        this.delta = delta;
+        app.init(null);
+    }
+
+    /**
+     * carry on from a snapshot, rather than from take-off
+     */
+    public SimulationRunner(WorldSnapshot snapshot) {
+        this(new XCGame(snapshot.getSeed()));
+        snapshot.restore(app);
+    }
+
+    public XCGame getApp() {
+        return app;
+    }
+
+    /** how many steps we have taken so far */
+    public long getTicks() {
+        return ticks;
+    }
+
+    public void step() {
+        app.clock.step(delta);
+        ticks++;
+    }
+
+    public void run(long numTicks) {
+        for (long i = 0; i < numTicks; i++)
+            step();
+    }
+
+    /**
+     * step until the game clock has advanced by the given amount
+     * of model time (see XCGame.time)
+     */
+    public void runFor(float modelTime) {
+        float end = app.time + modelTime;
+        while (app.time < end)
+            step();
+    }
+
+    /**
+     * run the demo for n ticks (default 10,000), from the given seed if
+     * any, and report how far the gaggle got and how long it took
+     */
+    public static void main(String[] args) {
+        long numTicks = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+        XCGame game = (args.length > 1) ? new XCGame(Long.parseLong(args[1])) : new XCGame();
+
+        SimulationRunner runner = new SimulationRunner(game);
+        long start = System.currentTimeMillis();
+        runner.run(numTicks);
+        long millis = System.currentTimeMillis() - start;
+
+        XCGame app = runner.getApp();
+        System.out.println(numTicks + " ticks in " + millis + "ms, model time " + app.time + ", seed " + app.getSeed());
+        for (int i = 0; i < app.gaggle.size(); i++) {
+            Glider glider = app.gaggle.elementAt(i);
+            System.out.println("glider " + i + ": y " + glider.p.y + " z " + glider.p.z
+                    + (glider.reachedGoal ? " goal" : glider.landed ? " landed" : ""));
+        }
+    }
+}
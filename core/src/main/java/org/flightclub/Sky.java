@@ -18,19 +18,63 @@ public class Sky {
     private final static float BASE_HIGH = 3;
     private final static float BASE_LOW = 2;
 
-    // clouds in order from south to north
-    private final Vector<Cloud> clouds = new Vector<>();
-    private static float cloudBase = BASE_LOW;
+    private float cloudBase = BASE_LOW;
+
+    // units of unit distance (km) per unit time (minute)
+    private final float wind = (float) 0.3;
 
     final static float RANGE = 8;    //for next /prev - dist per unit height i.e. glide angle
 
+    /*
+     * clouds are bucketed by the y of their base. lift leans downwind
+     * with height (see Cloud.getY) so we lookup a point by where its
+     * column meets cloud base. the cells wrap round, any cloud in a cell
+     * may be far away - the usual tests below weed those out.
+     */
+    static final float CELL_SIZE = 2 * Cloud.LIFT_FN_OUTER;
+    static final int NUM_CELLS = 128;
+    private final Vector<Cloud>[] cells;
+
+    // clouds count up as they are added, lookups prefer older clouds
+    private int numAdded = 0;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Sky() {
+        cells = new Vector[NUM_CELLS];
+        for (int i = 0; i < NUM_CELLS; i++)
+            cells[i] = new Vector<>();
+    }
+
     void addCloud(Cloud cloud) {
-        // TODO keep sorted list of clouds
-        clouds.addElement(cloud);
+        cloud.serial = numAdded++;
+        cloud.cell = wrap(cellIndex(cloud.p.y));
+        cells[cloud.cell].addElement(cloud);
     }
 
     void removeCloud(Cloud cloud) {
-        clouds.removeElement(cloud);
+        cells[cloud.cell].removeElement(cloud);
+    }
+
+    /**
+     * clouds drift downwind - rebucket if this one has left its cell
+     */
+    void moveCloud(Cloud cloud) {
+        int cell = wrap(cellIndex(cloud.p.y));
+        if (cell != cloud.cell) {
+            cells[cloud.cell].removeElement(cloud);
+            cloud.cell = cell;
+            cells[cell].addElement(cloud);
+        }
+    }
+
+    void save(WorldState out) {
+        out.putFloat(cloudBase);
+        out.putInt(numAdded);
+    }
+
+    void restore(WorldState in) {
+        cloudBase = in.getFloat();
+        numAdded = in.getInt();
     }
 
     void setHigh() {
@@ -41,28 +85,52 @@ public class Sky {
         cloudBase = BASE_LOW;
     }
 
+    static int cellIndex(float y) {
+        return (int) Math.floor(y / CELL_SIZE);
+    }
+
+    static int wrap(int cellIndex) {
+        int i = cellIndex % NUM_CELLS;
+        return (i < 0) ? i + NUM_CELLS : i;
+    }
+
+    /**
+     * y at cloud base of the lift column through (y, z)
+     */
+    float baseY(float y, float z) {
+        return y + (cloudBase - z) * Cloud.WIND_SLOPE;
+    }
+
     /**
      * return first cloud downwind of p within glide
      */
     Cloud nextCloud(Vector3d p) {
-        int j = -1;
+        Cloud next = null;
         float dy_min = RANGE * p.z;
+        float y = baseY(p.y, p.z);
+
+        //one cell slack either side for rounding
+        int c0 = cellIndex(y) - 1;
+        int c1 = cellIndex(y + dy_min) + 1;
+        if (c1 - c0 >= NUM_CELLS) {
+            c0 = 0;
+            c1 = NUM_CELLS - 1;
+        }
 
-        for (int i = 0; i < clouds.size(); i++) {
-            Cloud cloud = clouds.elementAt(i);
-            //if (cloud.getY(p.z) >= p.y && cloud.age < 10) {
-            if (cloud.getY(p.z) >= p.y && !cloud.decaying) {
-                float dy = cloud.getY(p.z) - p.y;
-                if (dy < dy_min) {
-                    j = i;
-                    dy_min = dy;
+        for (int c = c0; c <= c1; c++) {
+            Vector<Cloud> cell = cells[wrap(c)];
+            for (int i = 0; i < cell.size(); i++) {
+                Cloud cloud = cell.elementAt(i);
+                if (cloud.getY(p.z) >= p.y && !cloud.decaying) {
+                    float dy = cloud.getY(p.z) - p.y;
+                    if (dy < dy_min || (dy == dy_min && next != null && cloud.serial < next.serial)) {
+                        next = cloud;
+                        dy_min = dy;
+                    }
                 }
             }
         }
-        if (j != -1) return clouds.elementAt(j);
-
-        //System.out.println("Next cloud returning null !");
-        return null;
+        return next;
     }
 
     /**
@@ -71,41 +139,56 @@ public class Sky {
      * and reach end of a tile
      */
     Cloud prevCloud(Vector3d p) {
-        int j = -1;
+        Cloud prev = null;
         float dy_min = RANGE * p.z;
+        float y = baseY(p.y, p.z);
 
-        for (int i = clouds.size() - 1; i >= 0; i--) {
-            Cloud cloud = clouds.elementAt(i);
-            if (cloud.getY(p.z) <= p.y && cloud.age < 10) {
-                float dy = p.y - cloud.getY(p.z);
-                if (dy < dy_min) {
-                    j = i;
-                    dy_min = dy;
+        int c0 = cellIndex(y - dy_min) - 1;
+        int c1 = cellIndex(y) + 1;
+        if (c1 - c0 >= NUM_CELLS) {
+            c0 = 0;
+            c1 = NUM_CELLS - 1;
+        }
+
+        for (int c = c0; c <= c1; c++) {
+            Vector<Cloud> cell = cells[wrap(c)];
+            for (int i = 0; i < cell.size(); i++) {
+                Cloud cloud = cell.elementAt(i);
+                if (cloud.getY(p.z) <= p.y && cloud.age < 10) {
+                    float dy = p.y - cloud.getY(p.z);
+                    if (dy < dy_min || (dy == dy_min && prev != null && cloud.serial > prev.serial)) {
+                        prev = cloud;
+                        dy_min = dy;
+                    }
                 }
             }
         }
-
-        if (j != -1) return clouds.elementAt(j);
-
-        //System.out.println("Prev cloud returning null");
-        return null;
+        return prev;
     }
 
     public Cloud getCloudAt(Vector3d p) {
-        for (Cloud cloud : clouds)
-            if (cloud.isUnder(p))
-                return cloud;
-
-        return null;
+        Cloud under = null;
+        float y = baseY(p.y, p.z);
+
+        int c0 = cellIndex(y - Cloud.LIFT_FN_OUTER) - 1;
+        int c1 = cellIndex(y + Cloud.LIFT_FN_OUTER) + 1;
+        for (int c = c0; c <= c1; c++) {
+            Vector<Cloud> cell = cells[wrap(c)];
+            for (int i = 0; i < cell.size(); i++) {
+                Cloud cloud = cell.elementAt(i);
+                if ((under == null || cloud.serial < under.serial) && cloud.isUnder(p))
+                    under = cloud;
+            }
+        }
+        return under;
     }
 
-    static float getCloudBase() {
+    float getCloudBase() {
         return cloudBase;
     }
 
-    static float getWind() {
-        // units of unit distance (km) per unit time (minute)
-        return (float) 0.3;
+    float getWind() {
+        return wind;
     }
 
 }
@@ -9,12 +9,14 @@
 package org.flightclub;
 
 import org.flightclub.compat.Color;
+import org.flightclub.compat.DepthGraphics;
 import org.flightclub.compat.Graphics;
 
 public class Surface extends PolyLine {
 
     final int[] xs;
     final int[] ys;
+    final float[] ws;
 
     public Surface(Object3d object, int numPoints, Color color) {
         super(object, numPoints, color);
@@ -23,6 +25,7 @@ public class Surface extends PolyLine {
 
         xs = new int[numPoints];
         ys = new int[numPoints];
+        ws = new float[numPoints];
     }
 
     @Override
@@ -33,15 +36,25 @@ public class Surface extends PolyLine {
 
         g.setColor(getColor());
 
+        float[] ps_ = object3d.ps_;
+        DepthGraphics dg = depthTested(g);
         for (int i = 0; i < numPoints; i++) {
-            Vector3d a = object3d.points_.elementAt(points[i]);
-            xs[i] = (int) (a.y);
-            ys[i] = (int) (a.z);
-
-            inFOV = inFOV && object3d.inFOVs.elementAt(points[i]);
+            int slot = object3d.slot(points[i]);
+            int k = slot * 3;
+            xs[i] = (int) (ps_[k + 1]);
+            ys[i] = (int) (ps_[k + 2]);
+            if (dg != null)
+                ws[i] = depthW(slot);
+
+            inFOV = inFOV && object3d.inFOVs[slot];
         }
 
-        if (inFOV)
+        if (!inFOV)
+            return;
+
+        if (dg != null)
+            dg.fillPolygon(xs, ys, ws, xs.length);
+        else
             g.fillPolygon(xs, ys, xs.length);
     }
 
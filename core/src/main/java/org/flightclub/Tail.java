@@ -18,9 +18,12 @@ import java.util.Vector;
 public class Tail extends Object3d {
     final int length;
     final Color color;
-    private Vector3d[] tail;
     int wireEvery = 4;    //default add a wire for every 5 points
 
+    // how far our head moved last tick - when drawing between ticks
+    // only the head is filmed back along this, the older points stay put
+    final Vector3d headDp = new Vector3d();
+
     public Tail(XCGame theApp, int length, Color color) {
         // only register top level objects with the manager
         // a tail has a parent who IS registered with the manager
@@ -41,11 +44,16 @@ public class Tail extends Object3d {
         this.color = color;
     }
 
+    /**
+     * point i of this object is the position i ticks ago - add them
+     * all first, in order, so the wires below reuse the same indexes
+     */
     public void init(Vector3d p) {
-        tail = new Vector3d[length];
+        Vector3d[] tail = new Vector3d[length];
 
         for (int i = 0; i < length; i++) {
             tail[i] = new Vector3d(p.x, p.y - (float) i / 1000, p.z);
+            addPoint(tail[i]);
         }
 
         Vector<Vector3d> tailWire = new Vector<>();
@@ -63,13 +71,34 @@ public class Tail extends Object3d {
         }
     }
 
+    /**
+     * points form a ring - step head back so the oldest point
+     * becomes point 0, then overwrite it
+     */
     public void moveTo(Vector3d newP) {
         //newP is the current position
-        for (int i = 0; i < length - 1; i++) {
-            int j = length - 1 - i;
-            tail[j].set(tail[j - 1]);
-        }
-        tail[0].set(newP);
+        head = (head == 0) ? numPoints - 1 : head - 1;
+        setPoint(0, newP);
+    }
+
+    /**
+     * as for any object, then the head back along headDp
+     */
+    @Override
+    void film(CameraMan camera) {
+        super.film(camera);
+        if (!inFOV || camera.lag == 0)
+            return;
+
+        int k = slot(0) * 3;
+        Vector3d focus = camera.getViewFocus();
+        Tools3d.applyTo(camera.getMatrix(),
+                ps[k] - camera.lag * headDp.x - focus.x,
+                ps[k + 1] - camera.lag * headDp.y - focus.y,
+                ps[k + 2] - camera.lag * headDp.z - focus.z, ps_, k);
+
+        inFOVs[slot(0)] = Tools3d.projectYZ(ps_, k, camera.getDistance());
+        camera.scaleToScreen(ps_, k);
     }
 
     /*
@@ -79,7 +108,7 @@ public class Tail extends Object3d {
      */
     public void reset(Vector3d newP) {
         for (int i = 0; i < length - 1; i++) {
-            tail[i].set(newP);
+            setPoint(i, newP);
         }
     }
 
@@ -36,6 +36,15 @@ public class ThermalTrigger implements Clock.Observer {
     static final int CLOUD_DURATION = 10;
     static final int MAX_WAIT = 7;
 
+    /** ticks of the clock per tick of ours - a cycle lasts a good while */
+    static final int TICK_DIVISOR = 4;
+
+    /** names the game's stream of trigger streams */
+    static final long RANDOM_KEY = 0x54524947L;
+
+    /** keyed on where we are, so a reloaded trigger does the same again */
+    final RandomStream random;
+
     public ThermalTrigger(XCGame theApp, int inX, int inY) {
         this(theApp, inX, inY, 1, 1, 1);
     }
@@ -46,16 +55,17 @@ public class ThermalTrigger implements Clock.Observer {
 
     public ThermalTrigger(XCGame theApp, int inX, int inY, int inCloudStrenth, float inCycleLength, float inCloudDuration) {
         app = theApp;
-        app.clock.addObserver(this);
+        schedule();
         x = inX;
         y = inY;
+        random = app.random.split(RANDOM_KEY).split(((long) x << 32) | (y & 0xffffffffL));
 
         cloudStrength = inCloudStrenth;
         cycleLength = (int) (inCycleLength * CYCLE_LENGTH);
         cloudDuration = (int) (inCloudDuration * CLOUD_DURATION);
 
-        t = (int) Tools3d.rnd(0, cycleLength - 1);
-        nextCloud = (int) Tools3d.rnd(0, 2);
+        t = (int) random.nextDouble(0, cycleLength - 1);
+        nextCloud = (int) random.nextDouble(0, 2);
         clouds = new Vector<>();
 
         //more cloud on center tiles
@@ -70,7 +80,7 @@ public class ThermalTrigger implements Clock.Observer {
             makeCloud();
         }
 
-        Landscape.crossHair(x, y);
+        Landscape.crossHair(app, x, y);
     }
 
     @Override
@@ -86,8 +96,15 @@ public class ThermalTrigger implements Clock.Observer {
         //System.out.println("avg secs: " + c.getAvgSleep());
     }
 
+    /**
+     * have the clock tick us, with the physics
+     */
+    void schedule() {
+        app.clock.addObserver(this, Clock.Phase.PHYSICS, TICK_DIVISOR);
+    }
+
     void makeCloud() {
-        float dx = (float) Tools3d.rnd(-SPREAD, SPREAD);
+        float dx = (float) random.nextDouble(-SPREAD, SPREAD);
         float dy;
 
         switch (nextCloud) {
@@ -107,11 +124,25 @@ public class ThermalTrigger implements Clock.Observer {
         nextCloud++;
         if (nextCloud == 3) nextCloud = 0;
 
-        Cloud cloud = new Cloud(app, x + dx, y + dy, cloudDuration, cloudStrength);
+        Cloud cloud = new Cloud(app, x + dx, y + dy, cloudDuration, cloudStrength, random.split());
         clouds.addElement(cloud);
         cloud.trigger = this;
     }
 
+    void save(WorldState out) {
+        out.putFloat(t);
+        out.putInt(nextCloud);
+        out.putInt(dummyClick);
+        out.putLong(random.getState());
+    }
+
+    void restore(WorldState in) {
+        t = in.getFloat();
+        nextCloud = in.getInt();
+        dummyClick = in.getInt();
+        random.setState(in.getLong());
+    }
+
     void destroyMe() {
         app.clock.removeObserver(this);
 
@@ -25,8 +25,6 @@ public class Tools3d {
     public static final int XYF = 4;
     public static final int XYB = 5;
 
-    static int depth = 50;
-
     static Vector3d[] circleXZ(int numPoints, float radius, Vector3d center) {
         float dtheta = (float) Math.PI * 2 / numPoints;
         Vector3d[] circle = new Vector3d[numPoints];
@@ -212,21 +210,23 @@ public class Tools3d {
     }
 
     public static void applyTo(float[][] m, Vector3d a, Vector3d a_) {
-        float[] inV = new float[3];
-        float[] outV = {0, 0, 0};
+        float x = a.x;
+        float y = a.y;
+        float z = a.z;
 
-        inV[0] = a.x;
-        inV[1] = a.y;
-        inV[2] = a.z;
+        a_.x = m[0][0] * x + m[0][1] * y + m[0][2] * z;
+        a_.y = m[1][0] * x + m[1][1] * y + m[1][2] * z;
+        a_.z = m[2][0] * x + m[2][1] * y + m[2][2] * z;
+    }
 
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                outV[i] = outV[i] + m[i][j] * inV[j];
-            }
-        }
-        a_.x = outV[0];
-        a_.y = outV[1];
-        a_.z = outV[2];
+    /**
+     * as above but for a point (x, y, z), storing the result in a
+     * flattened list of points at index k
+     */
+    public static void applyTo(float[][] m, float x, float y, float z, float[] ps_, int k) {
+        ps_[k] = m[0][0] * x + m[0][1] * y + m[0][2] * z;
+        ps_[k + 1] = m[1][0] * x + m[1][1] * y + m[1][2] * z;
+        ps_[k + 2] = m[2][0] * x + m[2][1] * y + m[2][2] * z;
     }
 
     public static float[][] applyTo(float[][] m1, float[][] m2) {
@@ -266,7 +266,24 @@ public class Tools3d {
         return true;
     }
 
-    public static double rnd(double lower, double upper) {
-        return Math.random() * (upper - lower) + lower;
+    /** as above but projects in place the point at index k of a flattened list */
+    public static boolean projectYZ(float[] ps_, int k, float d) {
+        float tanMax = 25;
+
+        float x = ps_[k];
+        if (x >= d) return false; //point behind camera
+
+        float tan;
+        float scale = (d - x);
+
+        tan = ps_[k + 1] / scale;
+        if (tan * tan > tanMax) return false;
+        else ps_[k + 1] = ps_[k + 1] / scale;
+
+        tan = ps_[k + 2] / scale;
+        if (tan * tan > tanMax) return false;
+        else ps_[k + 2] = ps_[k + 2] / scale;
+
+        return true;
     }
 }
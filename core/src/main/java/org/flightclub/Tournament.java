@@ -0,0 +1,203 @@
+package org.flightclub;
+
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Flies many games at once, headless, and scores each glider of each
+ * gaggle - how far it got, when it reached goal and how long it spent
+ * climbing.
+ *
+ * Each game is a world of its own (seed, polar, turn radius, layout,
+ * see XCGame.setPolar etc), stepped by a SimulationRunner on one thread
+ * of a fixed pool, so a sweep of hundreds of games keeps every core busy
+ * without a thread per game. A game's results are the same whichever
+ * thread flies it, and whatever else is flying.
+ */
+public class Tournament {
+    final int numThreads;
+    final float delta;
+    private final Vector<XCGame> games = new Vector<>();
+
+    /** a thread per core */
+    public Tournament() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Tournament(int numThreads) {
+        this(numThreads, SimulationRunner.DEFAULT_DELTA);
+    }
+
+    public Tournament(int numThreads, float delta) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("threads " + numThreads);
+        this.numThreads = numThreads;
+        this.delta = delta;
+    }
+
+    /**
+     * enter a game, set up but not initialised
+     */
+    public void add(XCGame game) {
+        games.addElement(game);
+    }
+
+    /**
+     * fly every game for up to n ticks, or until its whole gaggle has
+     * landed or reached goal. results are in the order the games were
+     * added
+     */
+    public Vector<Result> run(final long numTicks) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, Math.max(1, games.size())));
+        try {
+            Vector<Future<Result>> futures = new Vector<>();
+            for (final XCGame game : games) {
+                futures.addElement(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return fly(game, numTicks);
+                    }
+                }));
+            }
+
+            Vector<Result> results = new Vector<>();
+            for (Future<Result> future : futures)
+                results.addElement(future.get());
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result fly(XCGame game, long numTicks) {
+        SimulationRunner runner = new SimulationRunner(game, delta);
+        Vector<Glider> gaggle = game.gaggle;
+        Score[] scores = new Score[gaggle.size()];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = new Score();
+
+        for (long t = 0; t < numTicks; t++) {
+            float before = game.time;
+            runner.step();
+            float dt = game.time - before;
+
+            boolean flying = false;
+            for (int i = 0; i < scores.length; i++) {
+                Glider glider = gaggle.elementAt(i);
+                Score score = scores[i];
+                if (score.goalTime < 0 && glider.reachedGoal)
+                    score.goalTime = game.time;
+                if (glider.landed || glider.reachedGoal)
+                    continue;
+
+                flying = true;
+                if (glider.v.z > 0)
+                    score.liftTime += dt;
+            }
+
+            if (!flying)
+                break;
+        }
+
+        for (int i = 0; i < scores.length; i++) {
+            Glider glider = gaggle.elementAt(i);
+            scores[i].distance = glider.p.y;
+            scores[i].landed = glider.landed;
+        }
+        return new Result(game.getSeed(), runner.getTicks(), scores);
+    }
+
+    /**
+     * how one game went
+     */
+    public static class Result {
+        final long seed;
+        final long ticks;
+        final Score[] scores;
+
+        Result(long seed, long ticks, Score[] scores) {
+            this.seed = seed;
+            this.ticks = ticks;
+            this.scores = scores;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /** how many ticks the game ran for */
+        public long getTicks() {
+            return ticks;
+        }
+
+        /** a score per glider of the gaggle, in the order they were made */
+        public Score[] getScores() {
+            return scores.clone();
+        }
+    }
+
+    /**
+     * how one glider did. distances and times are in model units, as
+     * for Vector3d and XCGame.time
+     */
+    public static class Score {
+        float distance = 0;
+        float goalTime = -1;
+        float liftTime = 0;
+        boolean landed = false;
+
+        /** downwind, from the start of the course */
+        public float getDistance() {
+            return distance;
+        }
+
+        public boolean reachedGoal() {
+            return goalTime >= 0;
+        }
+
+        /** game time when we crossed the goal line, or -1 */
+        public float getGoalTime() {
+            return goalTime;
+        }
+
+        /** game time spent climbing */
+        public float getLiftTime() {
+            return liftTime;
+        }
+
+        public boolean hasLanded() {
+            return landed;
+        }
+    }
+
+    /**
+     * fly n games (default a game per core) for up to m ticks (default
+     * 10,000) from seeds 1 to n and print each glider's score
+     */
+    public static void main(String[] args) throws Exception {
+        int numGames = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long numTicks = (args.length > 1) ? Long.parseLong(args[1]) : 10000;
+
+        Tournament tournament = new Tournament();
+        for (int i = 1; i <= numGames; i++)
+            tournament.add(new XCGame(i));
+
+        long start = System.currentTimeMillis();
+        Vector<Result> results = tournament.run(numTicks);
+        long millis = System.currentTimeMillis() - start;
+
+        System.out.println(numGames + " games on " + tournament.numThreads + " threads in " + millis + "ms");
+        for (Result result : results) {
+            System.out.println("seed " + result.seed + ", " + result.ticks + " ticks");
+            for (int i = 0; i < result.scores.length; i++) {
+                Score score = result.scores[i];
+                System.out.println("  glider " + i + ": y " + score.distance + " lift " + score.liftTime
+                        + (score.reachedGoal() ? " goal " + score.goalTime : score.landed ? " landed" : ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.flightclub;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Carries whole messages between a lockstep game and its server (see
+ * Lockstep and LockstepServer). Neither end blocks - send queues a
+ * message and receive returns null if none has arrived yet.
+ */
+public interface Transport {
+    /**
+     * queue the bytes remaining in message, which may be reused as
+     * soon as we return
+     */
+    public void send(ByteBuffer message) throws IOException;
+
+    /**
+     * the next message in, little endian, or null if there is none yet.
+     * throws EOFException once the other end has closed and every
+     * message it sent has been read
+     */
+    public ByteBuffer receive() throws IOException;
+
+    public void close() throws IOException;
+}
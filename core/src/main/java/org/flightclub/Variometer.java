@@ -8,13 +8,20 @@
 
 package org.flightclub;
 
-public class Variometer {
+/**
+ * Beeps as the glider climbs. Listens to the lift every few ticks rather
+ * than every tick - a beep lasts a fifth of a second anyway.
+ */
+public class Variometer implements Clock.Observer {
     public static final float LIFT_MAX = -2 * Glider.SINK_RATE;
 
     //how many different sounds
     private static final int NUM_BEEPS = 4;
     private static final float SECONDS_PER_BEEP = 0.2f;
 
+    /** ticks of the clock per tick of ours */
+    static final int TICK_DIVISOR = 2;
+
     //different beeps as we go up the steps
     private static final float[] STEPS = new float[NUM_BEEPS];
     static {
@@ -32,8 +39,12 @@ public class Variometer {
     public Variometer(XCGame app, FlyingDot flyingDot) {
         this.flyingDot = flyingDot;
         this.app = app;
+
+        //with the physics, so we are quiet when paused
+        app.clock.addObserver(this, Clock.Phase.PHYSICS, TICK_DIVISOR);
     }
 
+    @Override
     public void tick(float delta) {
         time += delta;
         if (time >= SECONDS_PER_BEEP) {
@@ -51,7 +62,7 @@ public class Variometer {
         float lift = flyingDot.v.z / (app.timeMultiplier * XCGame.TIME_PER_FRAME);
 
         String filename = filenameForLift(lift);
-        if (filename != null)
+        if (filename != null && app.envInterface != null)
             app.envInterface.play(filename);
     }
 
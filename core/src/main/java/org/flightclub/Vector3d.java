@@ -57,6 +57,11 @@ public final class Vector3d {
         return new Vector3d(this).add(other);
     }
 
+    /** Sets dest to this instance plus the other instance and returns dest. */
+    public Vector3d plus(Vector3d other, Vector3d dest) {
+        return dest.set(x + other.x, y + other.y, z + other.z);
+    }
+
     public Vector3d subtract(Vector3d other) {
         x -= other.x;
         y -= other.y;
@@ -69,6 +74,11 @@ public final class Vector3d {
         return new Vector3d(this).subtract(other);
     }
 
+    /** Sets dest to this instance subtracted by the other instance and returns dest. */
+    public Vector3d minus(Vector3d other, Vector3d dest) {
+        return dest.set(x - other.x, y - other.y, z - other.z);
+    }
+
     public Vector3d scaleBy(float factor) {
         x *= factor;
         y *= factor;
@@ -101,4 +111,14 @@ public final class Vector3d {
     public Vector3d crossed(Vector3d other) {
         return new Vector3d(this).cross(other);
     }
+
+    /**
+     * Sets dest to this instance cross multiplied with the other instance
+     * and returns dest. dest may be this or the other instance.
+     */
+    public Vector3d crossed(Vector3d other, Vector3d dest) {
+        return dest.set(y * other.z - z * other.y,
+                        -x * other.z + z * other.x,
+                        x * other.y - y * other.x);
+    }
 }
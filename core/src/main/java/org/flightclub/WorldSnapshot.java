@@ -0,0 +1,109 @@
+package org.flightclub;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * A game's whole state at one moment - the gaggle, the user's glider,
+ * jets, camera, clouds, thermal triggers and which tiles are loaded - as
+ * a compact array of bytes.
+ *
+ * Restore one to carry on a long batch run from a checkpoint, to start
+ * a game mid-flight rather than replaying it from take-off, or to fork
+ * several what-ifs from the same moment. A snapshot can only be
+ * restored to a game built from the same seed, as the hills and
+ * triggers of each tile come from it.
+ *
+ * The bytes are a header (magic, version, seed, flying dots) then the
+ * state written by WorldState, all little endian.
+ */
+public class WorldSnapshot {
+    static final int MAGIC = 0x464c534e;
+    static final int VERSION = 2;
+
+    /** magic, version, seed, dots */
+    static final int HEADER_SIZE = 20;
+
+    private final byte[] bytes;
+
+    private WorldSnapshot(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * snapshot the game as it is now - between ticks, so call from the
+     * clock thread, or with the clock stopped (eg. SimulationRunner)
+     */
+    public static WorldSnapshot take(XCGame app) {
+        ByteBuffer state = WorldState.save(app);
+
+        ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE + state.remaining());
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC);
+        b.putInt(VERSION);
+        b.putLong(app.getSeed());
+        b.putInt(app.flyingDots.dots.size());
+        b.put(state);
+        return new WorldSnapshot(b.array());
+    }
+
+    /**
+     * a snapshot from bytes written by toByteArray
+     */
+    public static WorldSnapshot fromByteArray(byte[] bytes) {
+        ByteBuffer b = header(bytes);
+        if (bytes.length < HEADER_SIZE || b.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("not a world snapshot");
+        if (b.getInt(4) != VERSION)
+            throw new IllegalArgumentException("snapshot is version " + b.getInt(4) + ", we read version " + VERSION);
+        return new WorldSnapshot(bytes.clone());
+    }
+
+    public static WorldSnapshot read(File file) throws IOException {
+        try {
+            return fromByteArray(Files.readAllBytes(file.toPath()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage());
+        }
+    }
+
+    public void write(File file) throws IOException {
+        Files.write(file.toPath(), bytes);
+    }
+
+    public byte[] toByteArray() {
+        return bytes.clone();
+    }
+
+    /** the seed of the game we were taken from */
+    public long getSeed() {
+        return header(bytes).getLong(8);
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * put the game back as it was when we were taken. the game must be
+     * initialised, and built from our seed
+     */
+    public void restore(XCGame app) {
+        if (app.landscape == null)
+            throw new IllegalStateException("game not initialised");
+        if (app.getSeed() != getSeed())
+            throw new IllegalArgumentException("snapshot is of the game with seed " + getSeed() + ", not " + app.getSeed());
+        if (app.flyingDots.dots.size() != header(bytes).getInt(16))
+            throw new IllegalArgumentException("snapshot has a different number of flying dots");
+
+        ByteBuffer state = ByteBuffer.wrap(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        WorldState.restore(app, state);
+    }
+
+    private static ByteBuffer header(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,365 @@
+package org.flightclub;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Vector;
+
+/**
+ * The state of a game's world written to, or read back from, a buffer -
+ * game time and mode, sky, which tiles are loaded, the thermal triggers
+ * and clouds, every flying dot and the camera. See WorldSnapshot for
+ * the public face of this, and FlightRecorder for keyframes.
+ *
+ * Each class saves and restores its own fields (see eg. Cloud.save),
+ * through the helpers here. Things which point at each other - a glider
+ * heading for a cloud, a jet buzzing a glider - are written as indexes:
+ * dots by the order they were made, hills and triggers by tile and place
+ * in the tile, clouds by the order they were written.
+ *
+ * Hills and triggers are not written, only how far through its cycle
+ * each trigger is - a tile is rebuilt the same whenever it is loaded.
+ * Clouds are rebuilt from their random seed, then aged and moved.
+ */
+class WorldState {
+    static final int VERSION = 3;
+
+    // what the clock ticks with the physics, besides the game's own observers
+    private static final int TRIGGER = 0, CLOUD = 1;
+
+    // what a glider may be about to cut the camera to
+    private static final int NOTHING = 0, HILL = 1, A_CLOUD = 2, DOT = 3, LANDSCAPE = 4;
+
+    final XCGame app;
+    private ByteBuffer buffer;
+
+    // clouds in the order written, so they can be pointed at by index
+    private final Vector<Cloud> clouds = new Vector<>();
+
+    private WorldState(XCGame theApp, ByteBuffer theBuffer) {
+        app = theApp;
+        buffer = theBuffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * write the game's state to a new buffer, flipped ready to read
+     */
+    static ByteBuffer save(XCGame app) {
+        WorldState out = new WorldState(app, ByteBuffer.allocate(16 * 1024));
+        out.write();
+        out.buffer.flip();
+        return out.buffer;
+    }
+
+    /**
+     * put the game back as it was when it was saved. the game must be
+     * built the same way (seed and flying dots) as the one saved
+     */
+    static void restore(XCGame app, ByteBuffer in) {
+        new WorldState(app, in.slice()).read();
+    }
+
+    private void write() {
+        putInt(VERSION);
+        putFloat(app.time);
+        putFloat(app.timeMultiplier);
+        putFloat(app.timePerFrame);
+        putBoolean(app.fastForward);
+        putLong(app.random.getState());
+        putInt(app.mode.ordinal());
+        putString(app.textMessage);
+
+        app.landscape.save(this);
+
+        //triggers and clouds, in the order the clock ticks them, and how
+        //far each is through its clock divisor
+        Vector<Clock.Observer> observers = app.clock.getObservers(Clock.Phase.PHYSICS);
+        int n = 0;
+        for (Clock.Observer o : observers)
+            if (o instanceof ThermalTrigger || o instanceof Cloud) n++;
+        putInt(n);
+
+        for (Clock.Observer o : observers) {
+            if (o instanceof ThermalTrigger) {
+                putInt(TRIGGER);
+                putTrigger((ThermalTrigger) o);
+            } else if (o instanceof Cloud) {
+                putInt(CLOUD);
+                Cloud cloud = (Cloud) o;
+                cloud.save(this);
+                clouds.addElement(cloud);
+            } else {
+                continue;
+            }
+            putSchedule(app.clock.getEntry(o));
+        }
+
+        //after the clouds, which count themselves in as they are made
+        app.sky.save(this);
+
+        Vector<FlyingDot> dots = app.flyingDots.dots;
+        putInt(dots.size());
+        for (FlyingDot dot : dots)
+            dot.save(this);
+
+        app.cameraMan.save(this);
+    }
+
+    private void read() {
+        if (getInt() != VERSION)
+            throw new IllegalArgumentException("not a version " + VERSION + " world state");
+
+        app.time = getFloat();
+        app.timeMultiplier = getFloat();
+        app.timePerFrame = getFloat();
+        app.fastForward = getBoolean();
+        app.random.setState(getLong());
+        app.mode = XCGame.Mode.values()[getInt()];
+        app.textMessage = getString();
+        if (app.mode == XCGame.Mode.USER) app.createInstruments();
+
+        app.landscape.restore(this);
+
+        //clear the sky, then tick triggers and clouds in the saved order
+        Vector<Clock.Observer> observers = app.clock.getObservers(Clock.Phase.PHYSICS);
+        for (Clock.Observer o : observers) {
+            if (o instanceof Cloud)
+                ((Cloud) o).destroyMe();
+            else if (o instanceof ThermalTrigger)
+                app.clock.removeObserver(o);
+        }
+
+        int n = getInt();
+        for (int i = 0; i < n; i++) {
+            Clock.Observer o;
+            if (getInt() == TRIGGER) {
+                ThermalTrigger trigger = getTrigger();
+                if (trigger != null) trigger.schedule();
+                o = trigger;
+            } else {
+                Cloud cloud = Cloud.restore(app, this);
+                clouds.addElement(cloud);
+                o = cloud;
+            }
+            getSchedule(o == null ? null : app.clock.getEntry(o));
+        }
+        app.sky.restore(this);
+
+        Vector<FlyingDot> dots = app.flyingDots.dots;
+        if (getInt() != dots.size())
+            throw new IllegalArgumentException("world state has a different number of flying dots");
+        for (FlyingDot dot : dots)
+            dot.restore(this);
+
+        app.cameraMan.restore(this);
+    }
+
+    void putInt(int i) {
+        ensure(4);
+        buffer.putInt(i);
+    }
+
+    void putLong(long l) {
+        ensure(8);
+        buffer.putLong(l);
+    }
+
+    void putFloat(float f) {
+        ensure(4);
+        buffer.putFloat(f);
+    }
+
+    void putDouble(double d) {
+        ensure(8);
+        buffer.putDouble(d);
+    }
+
+    void putBoolean(boolean b) {
+        ensure(1);
+        buffer.put((byte) (b ? 1 : 0));
+    }
+
+    void putVector(Vector3d v) {
+        putFloat(v.x);
+        putFloat(v.y);
+        putFloat(v.z);
+    }
+
+    /** a vector which may be null */
+    void putVectorOrNull(Vector3d v) {
+        putBoolean(v != null);
+        if (v != null) putVector(v);
+    }
+
+    /** a string which may be null */
+    void putString(String str) {
+        if (str == null) {
+            putInt(-1);
+            return;
+        }
+
+        byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+        putInt(utf8.length);
+        ensure(utf8.length);
+        buffer.put(utf8);
+    }
+
+    /** ticks to go and delta saved up, of a clock divisor */
+    void putSchedule(Clock.Entry entry) {
+        putInt(entry.countdown);
+        putFloat(entry.pending);
+    }
+
+    /** read into entry, or skip if null */
+    void getSchedule(Clock.Entry entry) {
+        int countdown = getInt();
+        float pending = getFloat();
+        if (entry != null) {
+            entry.countdown = countdown;
+            entry.pending = pending;
+        }
+    }
+
+    int getInt() {
+        return buffer.getInt();
+    }
+
+    long getLong() {
+        return buffer.getLong();
+    }
+
+    float getFloat() {
+        return buffer.getFloat();
+    }
+
+    double getDouble() {
+        return buffer.getDouble();
+    }
+
+    boolean getBoolean() {
+        return buffer.get() != 0;
+    }
+
+    String getString() {
+        int n = getInt();
+        if (n < 0) return null;
+
+        byte[] utf8 = new byte[n];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /** read into v */
+    Vector3d getVector(Vector3d v) {
+        return v.set(getFloat(), getFloat(), getFloat());
+    }
+
+    /** read into v, or return null if null was written */
+    Vector3d getVectorOrNull(Vector3d v) {
+        return getBoolean() ? getVector(v) : null;
+    }
+
+    /** by index, or -1 for null */
+    void putDot(FlyingDot dot) {
+        putInt(dot == null ? -1 : app.flyingDots.dots.indexOf(dot));
+    }
+
+    FlyingDot getDot() {
+        int i = getInt();
+        return (i < 0) ? null : app.flyingDots.dots.elementAt(i);
+    }
+
+    /** by index, or -1 if null or no longer in the sky */
+    void putCloud(Cloud cloud) {
+        putInt(cloud == null ? -1 : clouds.indexOf(cloud));
+    }
+
+    Cloud getCloud() {
+        int i = getInt();
+        return (i < 0) ? null : clouds.elementAt(i);
+    }
+
+    /** by tile and place in the tile, or -1 if null or unloaded */
+    void putHill(Hill hill) {
+        Landscape.Tile[] tiles = app.landscape.tiles;
+        for (int t = 0; hill != null && t < tiles.length; t++) {
+            int i = tiles[t].hills.indexOf(hill);
+            if (i >= 0) {
+                putInt(t);
+                putInt(i);
+                return;
+            }
+        }
+        putInt(-1);
+    }
+
+    Hill getHill() {
+        int t = getInt();
+        return (t < 0) ? null : app.landscape.tiles[t].hills.elementAt(getInt());
+    }
+
+    /** as for hills */
+    void putTrigger(ThermalTrigger trigger) {
+        Landscape.Tile[] tiles = app.landscape.tiles;
+        for (int t = 0; trigger != null && t < tiles.length; t++) {
+            int i = tiles[t].triggers.indexOf(trigger);
+            if (i >= 0) {
+                putInt(t);
+                putInt(i);
+                return;
+            }
+        }
+        putInt(-1);
+    }
+
+    ThermalTrigger getTrigger() {
+        int t = getInt();
+        return (t < 0) ? null : app.landscape.tiles[t].triggers.elementAt(getInt());
+    }
+
+    /** a hill, cloud, dot or tile the camera follows, or is to cut to */
+    void putSubject(CameraSubject subject) {
+        if (subject instanceof Landscape) {
+            putInt(LANDSCAPE);
+        } else if (subject instanceof Hill) {
+            putInt(HILL);
+            putHill((Hill) subject);
+        } else if (subject instanceof Cloud) {
+            putInt(A_CLOUD);
+            putCloud((Cloud) subject);
+        } else if (subject instanceof FlyingDot) {
+            putInt(DOT);
+            putDot((FlyingDot) subject);
+        } else {
+            putInt(NOTHING);
+        }
+    }
+
+    CameraSubject getSubject() {
+        switch (getInt()) {
+            case HILL:
+                return getHill();
+            case A_CLOUD:
+                return getCloud();
+            case DOT:
+                return getDot();
+            case LANDSCAPE:
+                return app.landscape;
+            default:
+                return null;
+        }
+    }
+
+    // grow the buffer, when writing, to fit n more bytes
+    private void ensure(int n) {
+        if (buffer.remaining() >= n)
+            return;
+
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + n));
+        bigger.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+}
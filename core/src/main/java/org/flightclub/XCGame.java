@@ -32,6 +32,8 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     public float time = 0.0f;
     Vector<Glider> gaggle;
     GliderUser gliderUser;
+    // whose flight the text message reports, see Lockstep
+    GliderUser pilot;
     JetTrail jet1;
     JetTrail jet2;
     Mode mode;
@@ -48,11 +50,91 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     private Variometer vario;
 
     final Clock clock = new Clock(1000 / FRAME_RATE);
+    final FlyingDotTicker flyingDots = new FlyingDotTicker();
 
+    /** everything random in the game comes from here (see RandomStream) */
+    final RandomStream random;
+
+    // the gliders and course built by init, see setPolar etc.
+    float[][] polar = Glider.POLAR;
+    float turnRadius = Glider.TURN_RADIUS;
+    Landscape.Terrain[] layout = Landscape.DEFAULT_LAYOUT;
+
+    /**
+     * set if something draws us more often than we tick (see the
+     * javase ActiveRenderer) - objects and camera are then drawn part
+     * way between where the last tick found them and where it left them
+     */
+    volatile boolean interpolate = false;
+
+    /**
+     * a game which plays out differently each time
+     */
     public XCGame() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * a game which plays out the same for the same seed and inputs
+     */
+    public XCGame(long seed) {
+        random = new RandomStream(seed);
+
+        //read the keys, then move everything, then follow it
+        clock.addObserver(new Clock.Observer() {
+            @Override
+            public void tick(float delta) {
+                eventManager.processEvents();
+            }
+        }, Clock.Phase.INPUT);
         clock.addObserver(this);
+        clock.addObserver(flyingDots);
+        clock.addObserver(new Clock.Observer() {
+            @Override
+            public void tick(float delta) {
+                tickCamera(delta);
+            }
+        }, Clock.Phase.CAMERA);
     }
 
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * speed and sink rate of the gliders at each point on their polar -
+     * {{speed, sink}, ...} as multiples of the default (1, 1). set before
+     * init, as this is read when the gliders are made
+     */
+    public void setPolar(float[][] polar) {
+        if (polar.length < 2)
+            throw new IllegalArgumentException("a polar needs at least 2 points");
+
+        //our own copy, games may run side by side
+        this.polar = new float[polar.length][];
+        for (int i = 0; i < polar.length; i++)
+            this.polar[i] = polar[i].clone();
+    }
+
+    /** set before init, as for setPolar */
+    public void setTurnRadius(float turnRadius) {
+        this.turnRadius = turnRadius;
+    }
+
+    /**
+     * what is on each tile of the course, up to the last (which has the
+     * goal line). set before init
+     */
+    public void setLayout(Landscape.Terrain... layout) {
+        if (layout.length != Landscape.MAX_TILES - 1)
+            throw new IllegalArgumentException("a layout has " + (Landscape.MAX_TILES - 1) + " tiles, not " + layout.length);
+        this.layout = layout.clone();
+    }
+
+    /**
+     * build the world. pass in a null interface to run headless (see
+     * SimulationRunner) - nothing is drawn and no sounds are played
+     */
     public void init(Interface envInterface) {
         this.envInterface = envInterface;
 
@@ -65,6 +147,7 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
 
         gliderUser = new GliderUser(this, new Vector3d(0, 0, 0));
         gliderUser.landed();
+        pilot = gliderUser;
         cameraMan.subject1 = gliderUser;
 
         vario = new Variometer(this, gliderUser);
@@ -152,6 +235,9 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     }
 
     void createInstruments() {
+        //nothing to draw them on if headless
+        if (envInterface == null) return;
+
         if (compass == null) compass = new Compass(25, envInterface.getWidth() - 30, envInterface.getHeight() - 15);
         if (slider == null) {
             float vmax = -2 * Glider.SINK_RATE;
@@ -163,8 +249,13 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     @Override
     public void tick(float delta) {
         time += delta * timeMultiplier / 2.0f;
+    }
+
+    private void tickCamera(float delta) {
+        //nothing to film until init
+        if (cameraMan == null) return;
 
-        eventManager.processEvent();
+        cameraMan.savePosition();
         cameraMan.tick();
 
         if (compass != null) compass.setArrow(gliderUser.v.x, gliderUser.v.y);
@@ -172,8 +263,6 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
 
         //convert v from dist per frame  to dist per unit time
         if (slider != null) slider.setValue(2.0f * gliderUser.v.z / (delta * timeMultiplier));
-
-        vario.tick(delta);
     }
 
     /**
@@ -192,10 +281,9 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     }
 
     @Override
-    public void keyPressed(KeyEvent e) {
+    public void keyPressed(int key) {
 
         //System.out.println(key);
-        int key = e.getKeyCode();
         switch (key) {
             case KeyEvent.VK_P:
                 togglePause();
@@ -248,19 +336,53 @@ public class XCGame implements EventManager.Interface, Clock.Observer {
     }
 
     @Override
-    public void keyReleased(KeyEvent e) {
+    public void keyReleased(int key) {
+    }
+
+    /**
+     * true if the key only moves the camera, and so changes nothing in
+     * the world
+     */
+    static boolean isCameraKey(int key) {
+        switch (key) {
+            case KeyEvent.VK_K:
+            case KeyEvent.VK_L:
+            case KeyEvent.VK_M:
+            case KeyEvent.VK_N:
+            case KeyEvent.VK_1:
+            case KeyEvent.VK_2:
+            case KeyEvent.VK_3:
+            case KeyEvent.VK_4:
+                return true;
+            default:
+                return false;
+        }
     }
 
     public void draw(Graphics g, int width, int height) {
-        //TODO optimize - build vector of objs in FOV, need only draw these
-        cameraMan.setMatrix();
+        if (interpolate) {
+            float alpha = clock.getStepFraction();
+            cameraMan.setMatrix(alpha);
+            //only the camera moves whilst paused
+            cameraMan.lag = clock.paused ? 0 : 1 - alpha;
+        } else {
+            cameraMan.setMatrix();
+            cameraMan.lag = 0;
+        }
 
-        obj3dManager.sortObjects();
+        //objects out of shot are culled as they are filmed
         for (ObjectLayer layer : obj3dManager.layers) {
-            for (Object3d object : layer) {
+            for (Object3d object : layer)
                 object.film(cameraMan);
+        }
+
+        //sort on this frame's depths, then paint back to front - unless
+        //a depth buffer sorts out what is in front pixel by pixel
+        if (PolyLine.depthTested(g) == null)
+            obj3dManager.sortObjects();
+        for (ObjectLayer layer : obj3dManager.layers) {
+            for (Object3d object : layer)
                 object.draw(g);
-            }
         }
 
         //Text
@@ -69,10 +69,47 @@ public class Color {
      */
     public final static Color BLUE = new Color(0, 0, 255);
 
+    /**
+     * Shades handed out by quantised(), 6 bits per channel, filled in
+     * as they are first asked for. Lighting and fog compute a fresh
+     * shade for every face on every frame, this way they don't make a
+     * new color each time.
+     */
+    private static final int SHADE_BITS = 6;
+    private static final Color[] shades = new Color[1 << (3 * SHADE_BITS)];
+
     public Color(int r, int g, int b) {
         this.c = new java.awt.Color(r, g, b);
     }
 
+    /**
+     * a shared color close to r, g, b (each 0..255). Colors are
+     * immutable, so a race to fill a slot just makes an extra one.
+     */
+    public static Color quantised(int r, int g, int b) {
+        int shift = 8 - SHADE_BITS;
+        int qr = clamp(r) >> shift;
+        int qg = clamp(g) >> shift;
+        int qb = clamp(b) >> shift;
+
+        int i = (((qr << SHADE_BITS) | qg) << SHADE_BITS) | qb;
+        Color color = shades[i];
+        if (color == null) {
+            color = new Color(expand(qr), expand(qg), expand(qb));
+            shades[i] = color;
+        }
+        return color;
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+
+    // spread a quantised channel back over 0..255
+    private static int expand(int q) {
+        return (q << (8 - SHADE_BITS)) | (q >> (2 * SHADE_BITS - 8));
+    }
+
     public java.awt.Color getColor() {
         return c;
     }
@@ -88,4 +125,11 @@ public class Color {
     public int getBlue() {
         return c.getBlue();
     }
+
+    /**
+     * packed as 0xAARRGGBB
+     */
+    public int getRGB() {
+        return c.getRGB();
+    }
 }
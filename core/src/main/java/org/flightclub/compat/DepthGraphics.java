@@ -0,0 +1,23 @@
+package org.flightclub.compat;
+
+/**
+ * Graphics which can keep a depth per pixel and only draw what is
+ * nearer than what is already there.
+ *
+ * Depths are given per vertex as w, one over the distance in front of
+ * the eye - so nearer is bigger, and w is linear across the screen.
+ * The plain drawing calls draw over everything without a depth test
+ * (eg. text and instruments).
+ */
+public interface DepthGraphics extends Graphics {
+    boolean isDepthTested();
+
+    /**
+     * pull what is drawn next towards the eye by this fraction of its
+     * distance, so it wins against surfaces it lies on (eg. shadows)
+     */
+    void setDepthBias(float bias);
+
+    void drawLine(int x1, int y1, float w1, int x2, int y2, float w2);
+    void fillPolygon(int[] xPoints, int[] yPoints, float[] ws, int nPoints);
+}
@@ -0,0 +1,478 @@
+package org.flightclub.compat;
+
+import java.awt.FontMetrics;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws straight into an array of packed RGB pixels (0xRRGGBB, one int
+ * per pixel, row by row) rather than through Java2D.
+ *
+ * Lines are Bresenham, clipped to the buffer first. Polygons are filled
+ * a scanline at a time, a pixel is in if its center is (even-odd rule).
+ * Text is stamped from glyph masks, which are rendered once per font
+ * and character by AWT and kept. Nothing here needs a display, so the
+ * same code can draw frames on a server.
+ *
+ * Drawing can be clipped to a rectangle of the buffer. Which pixels a
+ * shape covers does not depend on the clip, so a frame drawn as several
+ * clipped pieces is the same as one drawn whole (see TiledGraphics).
+ *
+ * With the depth test on we also keep w (see DepthGraphics) for every
+ * pixel, and faces can be drawn in any order.
+ */
+public class PixelGraphics implements DepthGraphics {
+    final int width, height;
+    final int[] pixels;
+
+    private int rgb = 0;
+    private Font font = null;
+
+    // clip rectangle, right and bottom edges exclusive
+    private int clipX0, clipY0, clipX1, clipY1;
+
+    // w per pixel, 0 is infinitely far - null unless depth testing
+    private float[] depths = null;
+    private float depthBias = 0;
+
+    // scratch for polygon fill, grown as needed
+    private float[] crossings = new float[8];
+    private float[] crossingWs = new float[8];
+
+    // glyph masks for each font we have drawn with, shared by all buffers
+    private static final Map<java.awt.Font, Glyph[]> glyphs = new HashMap<>();
+
+    public PixelGraphics(int width, int height) {
+        this(new int[width * height], width, height);
+    }
+
+    /**
+     * draw into someone else's pixels, eg. the data buffer of a
+     * TYPE_INT_RGB BufferedImage
+     */
+    public PixelGraphics(int[] pixels, int width, int height) {
+        if (pixels.length < width * height)
+            throw new IllegalArgumentException("pixel buffer too small for " + width + "x" + height);
+
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        setClip(0, 0, width, height);
+    }
+
+    /**
+     * only draw within this rectangle (of the buffer)
+     */
+    public void setClip(int x, int y, int w, int h) {
+        clipX0 = Math.max(x, 0);
+        clipY0 = Math.max(y, 0);
+        clipX1 = Math.min(x + w, width);
+        clipY1 = Math.min(y + h, height);
+    }
+
+    /**
+     * keep a depth buffer, and test against it when drawing with depths
+     */
+    public void setDepthTest(boolean on) {
+        setDepthBuffer(on ? new float[width * height] : null);
+    }
+
+    // for clipped graphics sharing one buffer
+    void setDepthBuffer(float[] depths) {
+        this.depths = depths;
+    }
+
+    @Override
+    public boolean isDepthTested() {
+        return depths != null;
+    }
+
+    @Override
+    public void setDepthBias(float bias) {
+        depthBias = bias;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * fill the clip rectangle (by default the whole buffer) with the
+     * current color, and push its depths back to infinity
+     */
+    public void clear() {
+        if (clipX0 == 0 && clipX1 == width) {
+            java.util.Arrays.fill(pixels, clipY0 * width, clipY1 * width, rgb);
+            if (depths != null)
+                java.util.Arrays.fill(depths, clipY0 * width, clipY1 * width, 0);
+            return;
+        }
+
+        for (int y = clipY0; y < clipY1; y++) {
+            java.util.Arrays.fill(pixels, y * width + clipX0, y * width + clipX1, rgb);
+            if (depths != null)
+                java.util.Arrays.fill(depths, y * width + clipX0, y * width + clipX1, 0);
+        }
+    }
+
+    @Override
+    public void setColor(Color color) {
+        rgb = color.getRGB() & 0xffffff;
+    }
+
+    void setRGB(int rgb) {
+        this.rgb = rgb & 0xffffff;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        this.font = font;
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        drawLine(x1, y1, 0, x2, y2, 0, false);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, float w1, int x2, int y2, float w2) {
+        drawLine(x1, y1, w1, x2, y2, w2, depths != null);
+    }
+
+    private void drawLine(int x1, int y1, float w1, int x2, int y2, float w2, boolean test) {
+        if (Math.max(x1, x2) < clipX0 || Math.min(x1, x2) >= clipX1
+                || Math.max(y1, y2) < clipY0 || Math.min(y1, y2) >= clipY1)
+            return;
+
+        //clip to the buffer (cohen-sutherland), in floating point as
+        //points near the camera can project a long way off screen. we
+        //clip to the whole buffer, not the clip rectangle, so the line
+        //steps through the same pixels however we are clipped
+        double ax = x1, ay = y1, bx = x2, by = y2;
+        float wa = w1, wb = w2;
+        int codeA = outCode(ax, ay);
+        int codeB = outCode(bx, by);
+
+        while ((codeA | codeB) != 0) {
+            if ((codeA & codeB) != 0)
+                return;
+
+            //t is how far along a to b the cut is
+            int code = codeA != 0 ? codeA : codeB;
+            double x, y, t;
+            if ((code & TOP) != 0) {
+                y = 0;
+                t = (y - ay) / (by - ay);
+                x = ax + (bx - ax) * t;
+            } else if ((code & BOTTOM) != 0) {
+                y = height - 1;
+                t = (y - ay) / (by - ay);
+                x = ax + (bx - ax) * t;
+            } else if ((code & LEFT) != 0) {
+                x = 0;
+                t = (x - ax) / (bx - ax);
+                y = ay + (by - ay) * t;
+            } else {
+                x = width - 1;
+                t = (x - ax) / (bx - ax);
+                y = ay + (by - ay) * t;
+            }
+            float w = (float) (wa + (wb - wa) * t);
+
+            if (code == codeA) {
+                ax = x;
+                ay = y;
+                wa = w;
+                codeA = outCode(ax, ay);
+            } else {
+                bx = x;
+                by = y;
+                wb = w;
+                codeB = outCode(bx, by);
+            }
+        }
+
+        bresenham((int) Math.round(ax), (int) Math.round(ay), wa, (int) Math.round(bx), (int) Math.round(by), wb, test);
+    }
+
+    private static final int LEFT = 1, RIGHT = 2, TOP = 4, BOTTOM = 8;
+
+    private int outCode(double x, double y) {
+        int code = 0;
+        if (x < 0) code |= LEFT;
+        else if (x > width - 1) code |= RIGHT;
+        if (y < 0) code |= TOP;
+        else if (y > height - 1) code |= BOTTOM;
+        return code;
+    }
+
+    // both ends are on the buffer. w steps evenly along the major axis
+    private void bresenham(int x0, int y0, float w0, int x1, int y1, float w1, boolean test) {
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1;
+        int sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+
+        int steps = Math.max(dx, -dy);
+        float w = w0;
+        float dw = (steps > 0) ? (w1 - w0) / steps : 0;
+        float bias = 1 + depthBias;
+
+        while (true) {
+            if (x0 >= clipX0 && x0 < clipX1 && y0 >= clipY0 && y0 < clipY1) {
+                int i = y0 * width + x0;
+                if (!test) {
+                    pixels[i] = rgb;
+                } else if (w * bias >= depths[i]) {
+                    pixels[i] = rgb;
+                    depths[i] = w;
+                }
+            }
+            if (x0 == x1 && y0 == y1)
+                return;
+            w += dw;
+
+            int e2 = 2 * err;
+            if (e2 >= dy) {
+                err += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                err += dx;
+                y0 += sy;
+            }
+        }
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        fillPolygon(xPoints, 0, yPoints, 0, null, 0, nPoints);
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, float[] ws, int nPoints) {
+        fillPolygon(xPoints, 0, yPoints, 0, (depths != null) ? ws : null, 0, nPoints);
+    }
+
+    /**
+     * fill the polygon whose coords start at xPoints[xOffset] and
+     * yPoints[yOffset], depth testing if given ws
+     */
+    void fillPolygon(int[] xPoints, int xOffset, int[] yPoints, int yOffset, float[] ws, int wOffset, int nPoints) {
+        if (nPoints < 3) return;
+
+        int ymin = yPoints[yOffset], ymax = yPoints[yOffset];
+        for (int i = 1; i < nPoints; i++) {
+            if (yPoints[yOffset + i] < ymin) ymin = yPoints[yOffset + i];
+            if (yPoints[yOffset + i] > ymax) ymax = yPoints[yOffset + i];
+        }
+        if (ymin < clipY0) ymin = clipY0;
+        if (ymax > clipY1) ymax = clipY1;
+
+        if (crossings.length < nPoints) {
+            crossings = new float[nPoints];
+            crossingWs = new float[nPoints];
+        }
+
+        for (int y = ymin; y < ymax; y++) {
+            float cy = y + 0.5f;
+
+            //where does this scanline cross the edges
+            int n = 0;
+            for (int i = 0, j = nPoints - 1; i < nPoints; j = i++) {
+                int yi = yPoints[yOffset + i], yj = yPoints[yOffset + j];
+                if ((yi <= cy) != (yj <= cy)) {
+                    int xi = xPoints[xOffset + i], xj = xPoints[xOffset + j];
+                    float t = (cy - yi) / (float) (yj - yi);
+                    crossings[n] = xi + t * (xj - xi);
+                    if (ws != null)
+                        crossingWs[n] = ws[wOffset + i] + t * (ws[wOffset + j] - ws[wOffset + i]);
+                    n++;
+                }
+            }
+
+            //few crossings, so an insertion sort
+            for (int i = 1; i < n; i++) {
+                float c = crossings[i];
+                float cw = crossingWs[i];
+                int j = i - 1;
+                while (j >= 0 && crossings[j] > c) {
+                    crossings[j + 1] = crossings[j];
+                    crossingWs[j + 1] = crossingWs[j];
+                    j--;
+                }
+                crossings[j + 1] = c;
+                crossingWs[j + 1] = cw;
+            }
+
+            for (int i = 0; i + 1 < n; i += 2) {
+                if (ws == null)
+                    fillSpan(y, crossings[i], crossings[i + 1]);
+                else
+                    fillDepthSpan(y, crossings[i], crossingWs[i], crossings[i + 1], crossingWs[i + 1]);
+            }
+        }
+    }
+
+    // as fillSpan, only where we are nearer than what is there
+    private void fillDepthSpan(int y, float x0, float w0, float x1, float w1) {
+        int from = (int) Math.ceil(x0 - 0.5f);
+        int to = (int) Math.ceil(x1 - 0.5f);
+        if (from < clipX0) from = clipX0;
+        if (to > clipX1) to = clipX1;
+        if (from >= to) return;
+
+        float dw = (x1 > x0) ? (w1 - w0) / (x1 - x0) : 0;
+        float w = w0 + (from + 0.5f - x0) * dw;
+        float bias = 1 + depthBias;
+
+        for (int i = y * width + from, end = y * width + to; i < end; i++) {
+            if (w * bias >= depths[i]) {
+                pixels[i] = rgb;
+                depths[i] = w;
+            }
+            w += dw;
+        }
+    }
+
+    // pixels on row y whose centers lie between x0 and x1
+    private void fillSpan(int y, float x0, float x1) {
+        int from = (int) Math.ceil(x0 - 0.5f);
+        int to = (int) Math.ceil(x1 - 0.5f);
+        if (from < clipX0) from = clipX0;
+        if (to > clipX1) to = clipX1;
+        if (from < to)
+            java.util.Arrays.fill(pixels, y * width + from, y * width + to, rgb);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int diameter) {
+        if (diameter <= 0) return;
+
+        float r = diameter / 2f;
+        float cx = x + r;
+        float cy = y + r;
+
+        int ymin = Math.max(y, clipY0);
+        int ymax = Math.min(y + diameter, clipY1);
+        for (int j = ymin; j < ymax; j++) {
+            float dy = j + 0.5f - cy;
+            float dx2 = r * r - dy * dy;
+            if (dx2 < 0) continue;
+
+            float dx = (float) Math.sqrt(dx2);
+            fillSpan(j, cx - dx, cx + dx);
+        }
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        if (font == null) return;
+
+        Glyph[] set = glyphsFor(font.getFont());
+        for (int i = 0; i < str.length(); i++) {
+            Glyph glyph = glyphFor(set, str.charAt(i));
+            stamp(glyph, x, y);
+            x += glyph.advance;
+        }
+    }
+
+    static Glyph glyphFor(Glyph[] set, char ch) {
+        Glyph glyph = (ch < set.length) ? set[ch] : null;
+        return (glyph != null) ? glyph : set['?'];
+    }
+
+    // (x, y) is the left end of the baseline, as for awt
+    private void stamp(Glyph glyph, int x, int y) {
+        int left = x - glyph.originX;
+        int top = y - glyph.originY;
+
+        for (int j = 0; j < glyph.height; j++) {
+            int py = top + j;
+            if (py < clipY0 || py >= clipY1) continue;
+
+            for (int i = 0; i < glyph.width; i++) {
+                int px = left + i;
+                if (px < clipX0 || px >= clipX1) continue;
+
+                if (glyph.mask[j * glyph.width + i])
+                    pixels[py * width + px] = rgb;
+            }
+        }
+    }
+
+    static Glyph[] glyphsFor(java.awt.Font f) {
+        synchronized (glyphs) {
+            Glyph[] set = glyphs.get(f);
+            if (set == null) {
+                set = renderGlyphs(f);
+                glyphs.put(f, set);
+            }
+            return set;
+        }
+    }
+
+    /**
+     * let awt draw the printable ascii characters, without antialiasing,
+     * and keep a mask of which pixels each one covers
+     */
+    private static Glyph[] renderGlyphs(java.awt.Font f) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = scratch.createGraphics();
+        g.setFont(f);
+        FontMetrics metrics = g.getFontMetrics();
+        g.dispose();
+
+        int w = metrics.getMaxAdvance() > 0 ? metrics.getMaxAdvance() * 2 : f.getSize() * 2;
+        int h = metrics.getAscent() + metrics.getDescent() + 2;
+        int originX = w / 4;
+        int originY = metrics.getAscent() + 1;
+
+        Glyph[] set = new Glyph[128];
+        for (char ch = ' '; ch < 127; ch++) {
+            BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            g = img.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+            g.setFont(f);
+            g.setColor(java.awt.Color.white);
+            g.drawString(String.valueOf(ch), originX, originY);
+            g.dispose();
+
+            boolean[] mask = new boolean[w * h];
+            for (int j = 0; j < h; j++)
+                for (int i = 0; i < w; i++)
+                    mask[j * w + i] = (img.getRGB(i, j) & 0xffffff) != 0;
+
+            set[ch] = new Glyph(mask, w, h, originX, originY, metrics.charWidth(ch));
+        }
+        return set;
+    }
+
+    static class Glyph {
+        final boolean[] mask;
+        final int width, height;
+        // where the start of the baseline sits in the mask
+        final int originX, originY;
+        final int advance;
+
+        Glyph(boolean[] mask, int width, int height, int originX, int originY, int advance) {
+            this.mask = mask;
+            this.width = width;
+            this.height = height;
+            this.originX = originX;
+            this.originY = originY;
+            this.advance = advance;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package org.flightclub.compat;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasterises a frame a screen tile at a time, the tiles in parallel.
+ *
+ * Drawing calls are not carried out straight away but recorded, and
+ * each one is put in the bin of every tile its bounding box touches.
+ * render() then hands the tiles out across the cores. A tile replays
+ * its bin, in the order things were drawn, through its own clipped
+ * PixelGraphics onto the shared pixel buffer - no two tiles write the
+ * same pixel, and the frame comes out exactly as if it had been drawn
+ * whole.
+ *
+ * Recording is into flat arrays, reused from frame to frame, so once
+ * they have grown to fit a frame nothing more is allocated. The depth
+ * test, if on, uses one depth buffer shared by the tiles likewise.
+ */
+public class TiledGraphics implements DepthGraphics {
+    /** tile width and height, in pixels */
+    static final int TILE_SIZE = 64;
+
+    /** fewer tiles than this and we rasterise on the calling thread */
+    static final int PARALLEL_THRESHOLD = 4;
+
+    private static final int LINE = 0, POLYGON = 1, CIRCLE = 2, STRING = 3;
+    private static final int DEPTH_LINE = 4, DEPTH_POLYGON = 5;
+
+    // one pool of worker threads for every renderer in this vm
+    private static ForkJoinPool pool = null;
+
+    final int width, height;
+    final int[] pixels;
+    final int tilesX, tilesY;
+    boolean parallel = true;
+
+    private final PixelGraphics[] tiles;
+
+    // recorded commands - op, color and where their arguments start
+    private int numCommands = 0;
+    private int[] ops = new int[256];
+    private int[] colors = new int[256];
+    private int[] argStarts = new int[256];
+    private String[] texts = new String[256];
+    private Font[] fonts = new Font[256];
+    private int[] wStarts = new int[256];
+    private float[] biases = new float[256];
+
+    private int numArgs = 0;
+    private int[] args = new int[1024];
+    private int numWs = 0;
+    private float[] ws = new float[512];
+
+    // per tile, the commands which touch it
+    private final int[][] bins;
+    private final int[] binSizes;
+
+    private int rgb = 0;
+    private Font font = null;
+    private boolean depthTested = false;
+    private float depthBias = 0;
+    private boolean cleared = false;
+    private int clearRGB = 0;
+
+    public TiledGraphics(int width, int height) {
+        this(new int[width * height], width, height);
+    }
+
+    public TiledGraphics(int[] pixels, int width, int height) {
+        if (pixels.length < width * height)
+            throw new IllegalArgumentException("pixel buffer too small for " + width + "x" + height);
+
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        tiles = new PixelGraphics[tilesX * tilesY];
+        bins = new int[tiles.length][16];
+        binSizes = new int[tiles.length];
+        for (int j = 0; j < tilesY; j++) {
+            for (int i = 0; i < tilesX; i++) {
+                PixelGraphics tile = new PixelGraphics(pixels, width, height);
+                tile.setClip(i * TILE_SIZE, j * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                tiles[j * tilesX + i] = tile;
+            }
+        }
+    }
+
+    /**
+     * keep a depth buffer, and test against it when drawing with depths
+     */
+    public void setDepthTest(boolean on) {
+        float[] depths = on ? new float[width * height] : null;
+        for (PixelGraphics tile : tiles)
+            tile.setDepthBuffer(depths);
+        depthTested = on;
+    }
+
+    @Override
+    public boolean isDepthTested() {
+        return depthTested;
+    }
+
+    @Override
+    public void setDepthBias(float bias) {
+        depthBias = bias;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * fill the whole buffer with the current color, before anything
+     * else is drawn, when the frame is rendered
+     */
+    public void clear() {
+        cleared = true;
+        clearRGB = rgb;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        rgb = color.getRGB();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        this.font = font;
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        int c = record(LINE, 4);
+        args[numArgs++] = x1;
+        args[numArgs++] = y1;
+        args[numArgs++] = x2;
+        args[numArgs++] = y2;
+        bin(c, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2));
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, float w1, int x2, int y2, float w2) {
+        if (!depthTested) {
+            drawLine(x1, y1, x2, y2);
+            return;
+        }
+
+        drawLine(x1, y1, x2, y2);
+        int c = numCommands - 1;
+        ops[c] = DEPTH_LINE;
+        recordWs(c, 2);
+        ws[numWs++] = w1;
+        ws[numWs++] = w2;
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        if (nPoints < 3) return;
+
+        int c = record(POLYGON, 1 + 2 * nPoints);
+        args[numArgs++] = nPoints;
+        System.arraycopy(xPoints, 0, args, numArgs, nPoints);
+        numArgs += nPoints;
+        System.arraycopy(yPoints, 0, args, numArgs, nPoints);
+        numArgs += nPoints;
+
+        int xmin = xPoints[0], xmax = xPoints[0];
+        int ymin = yPoints[0], ymax = yPoints[0];
+        for (int i = 1; i < nPoints; i++) {
+            xmin = Math.min(xmin, xPoints[i]);
+            xmax = Math.max(xmax, xPoints[i]);
+            ymin = Math.min(ymin, yPoints[i]);
+            ymax = Math.max(ymax, yPoints[i]);
+        }
+        bin(c, xmin, ymin, xmax, ymax);
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, float[] pointWs, int nPoints) {
+        if (nPoints < 3) return;
+        if (!depthTested) {
+            fillPolygon(xPoints, yPoints, nPoints);
+            return;
+        }
+
+        fillPolygon(xPoints, yPoints, nPoints);
+        int c = numCommands - 1;
+        ops[c] = DEPTH_POLYGON;
+        recordWs(c, nPoints);
+        System.arraycopy(pointWs, 0, ws, numWs, nPoints);
+        numWs += nPoints;
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int diameter) {
+        if (diameter <= 0) return;
+
+        int c = record(CIRCLE, 3);
+        args[numArgs++] = x;
+        args[numArgs++] = y;
+        args[numArgs++] = diameter;
+        bin(c, x, y, x + diameter, y + diameter);
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        if (font == null) return;
+
+        int c = record(STRING, 2);
+        args[numArgs++] = x;
+        args[numArgs++] = y;
+        texts[c] = str;
+        fonts[c] = font;
+
+        //box the glyph masks we will stamp
+        PixelGraphics.Glyph[] set = PixelGraphics.glyphsFor(font.getFont());
+        int xmin = x, xmax = x, ymin = y, ymax = y;
+        for (int i = 0; i < str.length(); i++) {
+            PixelGraphics.Glyph glyph = PixelGraphics.glyphFor(set, str.charAt(i));
+            xmin = Math.min(xmin, x - glyph.originX);
+            xmax = Math.max(xmax, x - glyph.originX + glyph.width);
+            ymin = Math.min(ymin, y - glyph.originY);
+            ymax = Math.max(ymax, y - glyph.originY + glyph.height);
+            x += glyph.advance;
+        }
+        bin(c, xmin, ymin, xmax, ymax);
+    }
+
+    // add a command taking n args, return its index
+    private int record(int op, int n) {
+        if (numCommands == ops.length) {
+            int size = numCommands * 2;
+            ops = Arrays.copyOf(ops, size);
+            colors = Arrays.copyOf(colors, size);
+            argStarts = Arrays.copyOf(argStarts, size);
+            texts = Arrays.copyOf(texts, size);
+            fonts = Arrays.copyOf(fonts, size);
+            wStarts = Arrays.copyOf(wStarts, size);
+            biases = Arrays.copyOf(biases, size);
+        }
+        if (numArgs + n > args.length)
+            args = Arrays.copyOf(args, Math.max(args.length * 2, numArgs + n));
+
+        int c = numCommands++;
+        ops[c] = op;
+        colors[c] = rgb;
+        argStarts[c] = numArgs;
+        return c;
+    }
+
+    // give command c room for n depths
+    private void recordWs(int c, int n) {
+        if (numWs + n > ws.length)
+            ws = Arrays.copyOf(ws, Math.max(ws.length * 2, numWs + n));
+
+        wStarts[c] = numWs;
+        biases[c] = depthBias;
+    }
+
+    // put command c in the bin of each tile the box touches
+    private void bin(int c, int xmin, int ymin, int xmax, int ymax) {
+        if (xmax < 0 || ymax < 0 || xmin >= width || ymin >= height)
+            return;
+
+        int i0 = Math.max(xmin, 0) / TILE_SIZE;
+        int j0 = Math.max(ymin, 0) / TILE_SIZE;
+        int i1 = Math.min(xmax, width - 1) / TILE_SIZE;
+        int j1 = Math.min(ymax, height - 1) / TILE_SIZE;
+
+        for (int j = j0; j <= j1; j++) {
+            for (int i = i0; i <= i1; i++) {
+                int t = j * tilesX + i;
+                if (binSizes[t] == bins[t].length)
+                    bins[t] = Arrays.copyOf(bins[t], binSizes[t] * 2);
+                bins[t][binSizes[t]++] = c;
+            }
+        }
+    }
+
+    /**
+     * rasterise what has been drawn since the last render into the
+     * pixel buffer, then start recording the next frame
+     */
+    public void render() {
+        if (parallel && tiles.length >= PARALLEL_THRESHOLD) {
+            getPool().invoke(new Rasterise(0, tiles.length));
+        } else {
+            for (int t = 0; t < tiles.length; t++)
+                rasterise(t);
+        }
+
+        //forget the frame, but not the space it took
+        Arrays.fill(texts, 0, numCommands, null);
+        Arrays.fill(fonts, 0, numCommands, null);
+        Arrays.fill(binSizes, 0);
+        numCommands = 0;
+        numArgs = 0;
+        numWs = 0;
+        cleared = false;
+    }
+
+    // replay tile t's bin through its clipped graphics
+    private void rasterise(int t) {
+        PixelGraphics g = tiles[t];
+        if (cleared) {
+            g.setRGB(clearRGB);
+            g.clear();
+        }
+
+        int[] bin = bins[t];
+        for (int k = 0; k < binSizes[t]; k++) {
+            int c = bin[k];
+            int a = argStarts[c];
+            int w = wStarts[c];
+            int n;
+            g.setRGB(colors[c]);
+
+            switch (ops[c]) {
+                case LINE:
+                    g.drawLine(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                    break;
+                case POLYGON:
+                    n = args[a];
+                    g.fillPolygon(args, a + 1, args, a + 1 + n, null, 0, n);
+                    break;
+                case DEPTH_LINE:
+                    g.setDepthBias(biases[c]);
+                    g.drawLine(args[a], args[a + 1], ws[w], args[a + 2], args[a + 3], ws[w + 1]);
+                    break;
+                case DEPTH_POLYGON:
+                    g.setDepthBias(biases[c]);
+                    n = args[a];
+                    g.fillPolygon(args, a + 1, args, a + 1 + n, ws, w, n);
+                    break;
+                case CIRCLE:
+                    g.fillCircle(args[a], args[a + 1], args[a + 2]);
+                    break;
+                case STRING:
+                    g.setFont(fonts[c]);
+                    g.drawString(texts[c], args[a], args[a + 1]);
+                    break;
+            }
+        }
+    }
+
+    static synchronized ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool();
+        return pool;
+    }
+
+    /**
+     * rasterise tiles from..to-1, splitting in half down to single tiles
+     */
+    class Rasterise extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int from, to;
+
+        Rasterise(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                rasterise(from);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new Rasterise(from, mid), new Rasterise(mid, to));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.flightclub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The lockstep wire protocol - a room fills and relays keys, and a
+ * player who sends something malformed is dropped without harming
+ * anyone else.
+ */
+public class LockstepServerTest {
+    static final long TIMEOUT = 5000;
+
+    LockstepServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LockstepServer(0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void relaysKeys() throws IOException {
+        Transport a = server.connect();
+        Transport b = server.connect();
+        a.send(join(1, 2));
+        b.send(join(1, 2));
+
+        ByteBuffer startA = receive(a);
+        ByteBuffer startB = receive(b);
+        assertEquals(Lockstep.START, startA.get());
+        assertEquals(Lockstep.START, startB.get());
+        assertEquals(startA.getLong(), startB.getLong());
+        assertEquals(2, startA.getInt());
+        assertEquals(2, startB.getInt());
+        assertTrue(startA.getInt() != startB.getInt());
+
+        a.send(input(0, 1, 'A'));
+        b.send(input(0, 0, 0));
+        byte[] frameA = bytes(receive(a));
+        byte[] frameB = bytes(receive(b));
+        assertArrayEquals(frameA, frameB);
+
+        ByteBuffer frame = ByteBuffer.wrap(frameA).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(Lockstep.FRAME, frame.get());
+        assertEquals(0, frame.getInt());
+        assertEquals(2, frame.get());
+        assertEquals(2 + Lockstep.KEY_BYTES + 2, frame.remaining());
+    }
+
+    @Test
+    public void dropsShortJoin() throws IOException {
+        Transport healthy = server.connect();
+        healthy.send(join(1, 2));
+
+        //a join with no room or players
+        Socket bad = connect();
+        OutputStream out = bad.getOutputStream();
+        out.write(new byte[]{1, 0, 0, 0, Lockstep.JOIN});
+        out.flush();
+        assertClosed(bad);
+
+        //the room we were waiting in still fills, over tcp too
+        Socket other = connect();
+        other.getOutputStream().write(lengthPrefixed(join(1, 2)));
+        assertEquals(Lockstep.START, receive(healthy).get());
+        other.close();
+    }
+
+    @Test
+    public void dropsEmptyMessage() throws IOException {
+        Socket bad = connect();
+        bad.getOutputStream().write(new byte[]{0, 0, 0, 0});
+        assertClosed(bad);
+        assertServing();
+    }
+
+    @Test
+    public void dropsTooManyKeys() throws IOException {
+        Transport bad = server.connect();
+        bad.send(join(2, 1));
+        receive(bad);
+
+        ByteBuffer m = ByteBuffer.allocate(NioTransport.MAX_MESSAGE).order(ByteOrder.LITTLE_ENDIAN);
+        m.put(Lockstep.INPUT);
+        m.putInt(0);
+        m.putShort((short) (EventManager.CAPACITY + 1));
+        while (m.remaining() >= Lockstep.KEY_BYTES) {
+            m.put(Lockstep.PRESSED);
+            m.putInt('A');
+        }
+        m.flip();
+        bad.send(m);
+        assertDropped(bad);
+        assertServing();
+    }
+
+    @Test
+    public void dropsCutShortInput() throws IOException {
+        Transport bad = server.connect();
+        bad.send(join(2, 1));
+        receive(bad);
+
+        //says one key, has none
+        ByteBuffer m = input(0, 1, 'A');
+        m.limit(m.limit() - Lockstep.KEY_BYTES);
+        bad.send(m);
+        assertDropped(bad);
+        assertServing();
+    }
+
+    @Test
+    public void rejectsCutShortFrame() throws IOException {
+        LoopbackTransport[] ends = LoopbackTransport.pair();
+        ByteBuffer start = message(17);
+        start.put(Lockstep.START);
+        start.putLong(42);
+        start.putInt(1);
+        start.putInt(0);
+        start.flip();
+        ends[1].send(start);
+
+        Lockstep lockstep = Lockstep.join(ends[0], 1, 1);
+        XCGame app = new XCGame(lockstep.getSeed());
+        app.init(null);
+        lockstep.attach(app);
+
+        //one player, three keys said but one sent
+        ByteBuffer frame = message(6 + 2 + Lockstep.KEY_BYTES);
+        frame.put(Lockstep.FRAME);
+        frame.putInt(0);
+        frame.put((byte) 1);
+        frame.putShort((short) 3);
+        frame.put(Lockstep.PRESSED);
+        frame.putInt('A');
+        frame.flip();
+        ends[1].send(frame);
+
+        try {
+            lockstep.step();
+            fail("stepped a cut short frame");
+        } catch (IOException e) {
+        }
+    }
+
+    // a new room, over tcp, still fills
+    private void assertServing() throws IOException {
+        Socket s = connect();
+        s.getOutputStream().write(lengthPrefixed(join(3, 1)));
+        InputStream in = s.getInputStream();
+        ByteBuffer header = ByteBuffer.wrap(readFully(in, 5)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(17, header.getInt());
+        assertEquals(Lockstep.START, header.get());
+        s.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket s = new Socket();
+        s.connect(new InetSocketAddress("localhost", server.getPort()));
+        s.setSoTimeout((int) TIMEOUT);
+        return s;
+    }
+
+    private static void assertClosed(Socket s) throws IOException {
+        assertEquals(-1, s.getInputStream().read());
+        s.close();
+    }
+
+    private static void assertDropped(Transport t) throws IOException {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < end) {
+            try {
+                if (t.receive() == null)
+                    Thread.sleep(5);
+            } catch (EOFException e) {
+                return;
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        fail("not dropped");
+    }
+
+    private static ByteBuffer receive(Transport t) throws IOException {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < end) {
+            ByteBuffer m = t.receive();
+            if (m != null)
+                return m;
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        throw new AssertionError("nothing received");
+    }
+
+    private static byte[] readFully(InputStream in, int n) throws IOException {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; ) {
+            int r = in.read(b, i, n - i);
+            if (r < 0)
+                throw new EOFException();
+            i += r;
+        }
+        return b;
+    }
+
+    private static ByteBuffer message(int n) {
+        return ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer join(int room, int players) {
+        ByteBuffer m = message(9);
+        m.put(Lockstep.JOIN);
+        m.putInt(room);
+        m.putInt(players);
+        m.flip();
+        return m;
+    }
+
+    // n keys, all key pressed
+    private static ByteBuffer input(int tick, int n, int key) {
+        ByteBuffer m = message(7 + n * Lockstep.KEY_BYTES);
+        m.put(Lockstep.INPUT);
+        m.putInt(tick);
+        m.putShort((short) n);
+        for (int i = 0; i < n; i++) {
+            m.put(Lockstep.PRESSED);
+            m.putInt(key);
+        }
+        m.flip();
+        return m;
+    }
+
+    private static byte[] lengthPrefixed(ByteBuffer m) {
+        ByteBuffer b = message(4 + m.remaining());
+        b.putInt(m.remaining());
+        b.put(m);
+        return b.array();
+    }
+
+    private static byte[] bytes(ByteBuffer m) {
+        byte[] b = new byte[m.remaining()];
+        m.get(b);
+        return b;
+    }
+}
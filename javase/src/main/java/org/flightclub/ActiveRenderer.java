@@ -0,0 +1,163 @@
+package org.flightclub;
+
+import org.flightclub.compat.AwtGraphics;
+
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.DisplayMode;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Draws the game from its own thread, paced to the display's refresh
+ * rate, rather than asking AWT to repaint the canvas each tick.
+ *
+ * Frames go into a page flipping BufferStrategy on the canvas; we ask
+ * for accelerated (VolatileImage) buffers and fall back to whatever
+ * the platform gives us. A frame that is not shown by its deadline is
+ * late, each whole refresh we miss on top of that is dropped. The
+ * counts are printed every few seconds.
+ *
+ * We usually draw several frames per game tick, so the game is asked
+ * to interpolate between ticks.
+ */
+public class ActiveRenderer implements Runnable {
+    /** used when the display won't tell us its refresh rate */
+    static final int DEFAULT_REFRESH_RATE = 60;
+
+    static final int REPORT_SECONDS = 10;
+
+    final XCGame app;
+    final ModelCanvas canvas;
+    final long framePeriod;
+
+    private volatile Thread renderer = null;
+    private BufferStrategy strategy;
+
+    private long frames = 0;
+    private long lateFrames = 0;
+    private long droppedFrames = 0;
+
+    public ActiveRenderer(XCGame theApp, ModelCanvas theCanvas) {
+        app = theApp;
+        canvas = theCanvas;
+        canvas.setActiveRendering(true);
+        app.interpolate = true;
+
+        int refreshRate = DEFAULT_REFRESH_RATE;
+        GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+        if (gc != null) {
+            DisplayMode mode = gc.getDevice().getDisplayMode();
+            if (mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN)
+                refreshRate = mode.getRefreshRate();
+        }
+        framePeriod = 1000000000L / refreshRate;
+    }
+
+    /**
+     * call once the canvas is showing
+     */
+    public void start() {
+        try {
+            ImageCapabilities accelerated = new ImageCapabilities(true);
+            canvas.createBufferStrategy(2, new BufferCapabilities(accelerated, accelerated, null));
+        } catch (AWTException e) {
+            canvas.createBufferStrategy(2);
+        }
+        strategy = canvas.getBufferStrategy();
+
+        renderer = new Thread(this, "renderer");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+
+    public void stop() {
+        renderer = null;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + framePeriod;
+        long nextReport = System.nanoTime() + REPORT_SECONDS * 1000000000L;
+
+        while (renderer != null) {
+            render();
+            frames++;
+
+            long now = System.nanoTime();
+            if (now > deadline) {
+                //missed the refresh - count any more we slept through
+                //and start again from now
+                lateFrames++;
+                droppedFrames += (now - deadline) / framePeriod;
+                deadline = now + framePeriod;
+            } else {
+                sleepUntil(deadline);
+                deadline += framePeriod;
+            }
+
+            if (now > nextReport) {
+                report();
+                nextReport = now + REPORT_SECONDS * 1000000000L;
+            }
+        }
+    }
+
+    /**
+     * draw a frame and flip it onto the screen. accelerated buffers may
+     * lose their contents at any time (eg. display mode change), in
+     * which case we draw again
+     */
+    void render() {
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    g.setColor(canvas.backColor);
+                    g.fillRect(0, 0, width, height);
+                    app.draw(new AwtGraphics(g), width, height);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+
+            strategy.show();
+            Toolkit.getDefaultToolkit().sync();
+        } while (strategy.contentsLost());
+    }
+
+    private void sleepUntil(long deadline) {
+        long nanos = deadline - System.nanoTime();
+        if (nanos <= 0)
+            return;
+
+        try {
+            Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+        } catch (InterruptedException e) {
+        }
+    }
+
+    private void report() {
+        System.out.println("renderer: " + frames + " frames, "
+                + lateFrames + " late, " + droppedFrames + " dropped"
+                + " (" + (1000000000L / framePeriod) + "Hz)");
+    }
+}
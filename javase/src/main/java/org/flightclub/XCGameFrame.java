@@ -9,13 +9,36 @@
 package org.flightclub;
 
 import java.awt.Frame;
+import java.io.File;
+import java.io.IOException;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 
 public class XCGameFrame extends Frame {
-    final XCGame app = new XCGame();
+    /** write the flight to this file (see FlightRecorder) */
+    static final String RECORD = System.getProperty("flightclub.record");
+
+    /** play this recorded flight back rather than flying (see FlightPlayer) */
+    static final String REPLAY = System.getProperty("flightclub.replay");
+
+    final XCGame app = newGame();
+    private FlightRecorder recorder = null;
+
+    /**
+     * how to draw the game - passive (default) repaints the canvas on
+     * each tick, active draws from a render thread (see ActiveRenderer),
+     * software repaints each tick but rasterises the frame itself, tiled
+     * does so too with screen tiles rasterised in parallel
+     */
+    static final String RENDERER = System.getProperty("flightclub.renderer", "passive");
+
+    /**
+     * software and tiled renderers only - keep a depth buffer instead
+     * of drawing back to front
+     */
+    static final boolean ZBUFFER = Boolean.getBoolean("flightclub.zbuffer");
 
     public XCGameFrame(String title, int w, int h) {
         super(title);
@@ -25,12 +48,25 @@ public class XCGameFrame extends Frame {
         setSize(w, h);
         show();
 
+        //settle how we draw before the clock and renderer threads start
+        //- they read these settings without locking
+        if (RENDERER.equals("software"))
+            panel.setSoftwareRendering(true);
+        else if (RENDERER.equals("tiled"))
+            panel.setSoftwareRendering(true, true);
+        panel.setDepthTest(ZBUFFER);
+
         panel.init();
         app.init(new FrameInterface(this, panel));
+        startLog();
+
+        if (RENDERER.equals("active"))
+            new ActiveRenderer(app, panel).start();
         app.start();
 
         this.addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent e) {
+                stopRecording();
                 System.exit(0);
             }
         });
@@ -48,6 +84,40 @@ public class XCGameFrame extends Frame {
         });
     }
 
+    /**
+     * a replay must be the same world as the recording, so use its seed
+     */
+    static XCGame newGame() {
+        if (REPLAY != null) {
+            try {
+                return new XCGame(FlightPlayer.readSeed(new File(REPLAY)));
+            } catch (IOException e) {
+                System.err.println("replay: " + e);
+            }
+        }
+        return new XCGame();
+    }
+
+    private void startLog() {
+        try {
+            if (REPLAY != null)
+                new FlightPlayer(app, new File(REPLAY)).start();
+            else if (RECORD != null)
+                recorder = new FlightRecorder(app, new File(RECORD));
+        } catch (IOException e) {
+            System.err.println((REPLAY != null ? "replay: " : "record: ") + e);
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) return;
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            System.err.println("record: " + e);
+        }
+    }
+
     public static void main(String s[]) {
         new XCGameFrame("Flight Club", 640, 490);
     }